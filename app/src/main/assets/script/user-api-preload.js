@@ -241,11 +241,44 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
     nativeCall(NATIVE_EVENTS_NAMES.request, { requestKey, url, options })
     return requestInfo
   }
-  const handleNativeResponse = ({ requestKey, error, response }) => {
+  const parseResponseBody = (body) => {
+    if (body instanceof ArrayBuffer) return body.byteLength ? new Uint8Array(body) : null
+    if (typeof body != 'string') return body
+    if (!body.length) return null
+    try {
+      return JSON.parse(body)
+    } catch (_) {
+      return body
+    }
+  }
+  const defineLazyBody = (response, rawBody) => {
+    let parsed
+    let isParsed = false
+    Object.defineProperty(response, 'body', {
+      enumerable: true,
+      configurable: true,
+      get() {
+        if (!isParsed) {
+          parsed = parseResponseBody(rawBody)
+          isParsed = true
+          rawBody = null
+        }
+        return parsed
+      },
+      set(value) {
+        parsed = value
+        isParsed = true
+        rawBody = null
+      },
+    })
+  }
+
+  const handleNativeResponse = ({ requestKey, error, response }, rawBody) => {
     const targetRequest = requestQueue.get(requestKey)
     if (!targetRequest) return
     requestQueue.delete(requestKey)
     targetRequest.requestInfo.aborted = true
+    if (response) defineLazyBody(response, rawBody === undefined ? null : rawBody)
     // if (targetRequest.timeout) clearTimeout(targetRequest.timeout)
     if (error == null) targetRequest.callback(null, response)
     else targetRequest.callback(new Error(error), null)
@@ -253,7 +286,7 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
 
   const handleRequest = ({ requestKey, data }) => {
     // console.log(data)
-    if (!events.request) return nativeCall(NATIVE_EVENTS_NAMES.response, { requestKey, status: false, errorMessage: 'Request event is not defined' })
+    if (!events.request) return nativeCall(NATIVE_EVENTS_NAMES.response, { requestKey, status: false, crashed: true, errorMessage: 'Request event is not defined' })
     try {
       events.request.call(globalThis.lx, { source: data.source, action: data.action, info: data.info }).then(response => {
         let result
@@ -299,24 +332,34 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
       })
     } catch (err) {
       // console.log('handleRequest call err', err)
-      nativeCall(NATIVE_EVENTS_NAMES.response, { requestKey, status: false, errorMessage: err.message })
+      nativeCall(NATIVE_EVENTS_NAMES.response, { requestKey, status: false, crashed: true, errorMessage: err.message })
     }
   }
 
-  const jsCall = (action, data) => {
+  const jsCall = (action, data, rawBody) => {
     // console.log('jsCall', action, data)
     switch (action) {
       case '__run_error__':
         if (!isInitedApi) isInitedApi = true
         return
       case '__set_timeout__':
-        handleSetTimeout(data)
+        if (!Array.isArray(data)) {
+          handleSetTimeout(data)
+          return
+        }
+        for (const id of data) {
+          try {
+            handleSetTimeout(id)
+          } catch (err) {
+            console.error('timer callback error', err && err.message)
+          }
+        }
         return
       case 'request':
         handleRequest(data)
         return
       case 'response':
-        handleNativeResponse(data)
+        handleNativeResponse(data, rawBody)
         return
     }
     return 'Unknown action: ' + action
@@ -326,9 +369,10 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
     enumerable: false,
     configurable: false,
     writable: false,
-    value: (_key, action, data) => {
+    value: (_key, action, data, rawBody) => {
       if (key != _key) return 'Invalid key'
-      return data == null ? jsCall(action) : jsCall(action, JSON.parse(data))
+      if (data == null) return jsCall(action)
+      return jsCall(action, typeof data == 'string' ? JSON.parse(data) : data, rawBody)
     },
   })
 
@@ -23,6 +23,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import mindrift.app.music.core.cache.CacheManager;
 import mindrift.app.music.core.network.HttpClient;
+import mindrift.app.music.core.network.HttpEngine;
 import mindrift.app.music.core.proxy.RequestProxy;
 import mindrift.app.music.core.script.ScriptManager;
 import mindrift.app.music.service.KeepAliveService;
@@ -62,15 +63,18 @@ public class App extends Application {
     public void onCreate() {
         super.onCreate();
         Logger.init();
+        HttpEngine.init(this);
         cacheManager = new CacheManager(this);
         scriptManager = new ScriptManager(this);
         requestProxy = new RequestProxy(this, scriptManager, cacheManager);
         wearableManager = new XiaomiWearableManager(this, requestProxy, scriptManager);
         scriptManager.addChangeListener(() -> wearableManager.notifyCapabilitiesChanged());
         scriptManager.addUpdateAlertListener(this::handleUpdateAlert);
+        scriptManager.start();
         registerActivityLifecycleCallbacks(activityCallbacks);
         wearableManager.start();
         startKeepAliveService();
+        HttpEngine.warmUp();
     }
 
     @Override
@@ -199,6 +203,7 @@ public class App extends Application {
         if (updateHttpClient != null) {
             updateHttpClient.shutdown();
         }
+        HttpEngine.flush();
     }
 
     private void startKeepAliveService() {
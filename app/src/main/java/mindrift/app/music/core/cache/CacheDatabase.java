@@ -0,0 +1,19 @@
+package mindrift.app.music.core.cache;
+
+import android.content.Context;
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+@Database(entities = {CacheRecord.class}, version = 1, exportSchema = false)
+public abstract class CacheDatabase extends RoomDatabase {
+    private static final String DB_NAME = "resolve_cache.db";
+
+    public abstract CacheRecordDao cacheRecordDao();
+
+    static CacheDatabase open(Context context) {
+        return Room.databaseBuilder(context.getApplicationContext(), CacheDatabase.class, DB_NAME)
+                .fallbackToDestructiveMigration()
+                .build();
+    }
+}
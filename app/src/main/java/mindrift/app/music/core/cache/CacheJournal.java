@@ -0,0 +1,171 @@
+package mindrift.app.music.core.cache;
+
+import com.google.gson.Gson;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import mindrift.app.music.utils.Logger;
+
+class CacheJournal {
+    private static final String OP_PUT = "put";
+    private static final String OP_REMOVE = "del";
+
+    private final Gson gson = new Gson();
+    private final File journalFile;
+    private final File tempFile;
+    private Writer writer;
+    private int recordCount;
+
+    CacheJournal(File journalFile) {
+        this.journalFile = journalFile;
+        this.tempFile = new File(journalFile.getParentFile(), journalFile.getName() + ".tmp");
+    }
+
+    synchronized int replay(Map<String, CacheEntry> target, long now) {
+        recordCount = 0;
+        if (!journalFile.exists()) return 0;
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                Record record;
+                try {
+                    record = gson.fromJson(line, Record.class);
+                } catch (Exception e) {
+                    skipped++;
+                    continue;
+                }
+                if (record == null || record.key == null) {
+                    skipped++;
+                    continue;
+                }
+                recordCount++;
+                if (OP_REMOVE.equals(record.op)) {
+                    target.remove(record.key);
+                } else if (record.expireAt > now) {
+                    target.put(record.key, new CacheEntry(record.key, record.data, record.provider, record.expireAt));
+                } else {
+                    target.remove(record.key);
+                }
+            }
+        } catch (Exception e) {
+            Logger.error("Cache journal replay failed: " + e.getMessage(), e);
+        }
+        if (skipped > 0) {
+            Logger.warn("Cache journal skipped corrupt records: " + skipped);
+        }
+        return recordCount;
+    }
+
+    synchronized void appendPut(CacheEntry entry) {
+        Record record = new Record();
+        record.op = OP_PUT;
+        record.key = entry.getKey();
+        record.data = entry.getData();
+        record.provider = entry.getProvider();
+        record.expireAt = entry.getExpireAt();
+        append(record);
+    }
+
+    synchronized void appendRemove(String key) {
+        Record record = new Record();
+        record.op = OP_REMOVE;
+        record.key = key;
+        append(record);
+    }
+
+    synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    synchronized void compact(Collection<CacheEntry> live) {
+        closeWriter();
+        try (Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile, false), StandardCharsets.UTF_8))) {
+            for (CacheEntry entry : live) {
+                Record record = new Record();
+                record.op = OP_PUT;
+                record.key = entry.getKey();
+                record.data = entry.getData();
+                record.provider = entry.getProvider();
+                record.expireAt = entry.getExpireAt();
+                output.write(gson.toJson(record));
+                output.write('\n');
+            }
+        } catch (Exception e) {
+            Logger.error("Cache journal compaction failed: " + e.getMessage(), e);
+            if (tempFile.exists() && !tempFile.delete()) {
+                Logger.warn("Cache journal temp delete failed");
+            }
+            return;
+        }
+        if (!tempFile.renameTo(journalFile)) {
+            Logger.warn("Cache journal rename failed");
+            return;
+        }
+        recordCount = live.size();
+    }
+
+    synchronized void flush() {
+        if (writer == null) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            Logger.warn("Cache journal flush failed: " + e.getMessage());
+        }
+    }
+
+    synchronized void delete() {
+        closeWriter();
+        recordCount = 0;
+        if (journalFile.exists() && !journalFile.delete()) {
+            Logger.warn("Cache journal delete failed");
+        }
+    }
+
+    synchronized void close() {
+        closeWriter();
+    }
+
+    private void append(Record record) {
+        try {
+            if (writer == null) {
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalFile, true), StandardCharsets.UTF_8));
+            }
+            writer.write(gson.toJson(record));
+            writer.write('\n');
+            writer.flush();
+            recordCount++;
+        } catch (Exception e) {
+            Logger.error("Cache journal append failed: " + e.getMessage(), e);
+            closeWriter();
+        }
+    }
+
+    private void closeWriter() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            Logger.warn("Cache journal close failed: " + e.getMessage());
+        }
+        writer = null;
+    }
+
+    private static class Record {
+        String op;
+        String key;
+        Object data;
+        String provider;
+        long expireAt;
+    }
+}
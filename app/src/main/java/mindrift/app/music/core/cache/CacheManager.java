@@ -5,126 +5,254 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import mindrift.app.music.utils.Logger;
 
 public class CacheManager {
     private static final long CACHE_DURATION = 4 * 60 * 60 * 1000L;
+    private static final int MAX_WIRE_ENTRIES = 256;
     private final Gson gson = new Gson();
-    private final File cacheFile;
-    private final Map<String, CacheEntry> cache = new HashMap<>();
+    private final File legacyFile;
+    private final File journalFile;
+    private final Future<CacheStore> store;
+    private final CachePolicy policy = new CachePolicy(CACHE_DURATION);
+    private final AtomicBoolean compactPending = new AtomicBoolean(false);
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final Map<String, WireEntry> wireCache = new LinkedHashMap<String, WireEntry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, WireEntry> eldest) {
+            return size() > MAX_WIRE_ENTRIES;
+        }
+    };
+
+    private long wireVersion;
 
     public CacheManager(Context context) {
-        this.cacheFile = new File(context.getFilesDir(), "cache.json");
-        load();
+        this.legacyFile = new File(context.getFilesDir(), "cache.json");
+        this.journalFile = new File(context.getFilesDir(), "cache.journal");
+        this.store = scheduler.submit(() -> {
+            CacheStore opened = openStore(context);
+            migrateLegacy(opened);
+            return opened;
+        });
         scheduler.scheduleAtFixedRate(this::cleanupExpired, 10, 10, TimeUnit.MINUTES);
-        scheduler.scheduleAtFixedRate(this::save, 5, 5, TimeUnit.MINUTES);
+        scheduler.scheduleAtFixedRate(this::compact, 5, 5, TimeUnit.MINUTES);
     }
 
-    public synchronized CacheEntry get(String key) {
-        CacheEntry entry = cache.get(key);
-        if (entry == null) return null;
-        if (entry.getExpireAt() <= System.currentTimeMillis()) {
-            cache.remove(key);
+    public CacheEntry get(String key) {
+        if (key == null) return null;
+        try {
+            return store.get().get(key, System.currentTimeMillis());
+        } catch (Exception e) {
+            Logger.warn("Cache read failed: " + e.getMessage());
             return null;
         }
-        return entry;
     }
 
-    public synchronized void put(String key, Object data, String provider) {
-        long expireAt = System.currentTimeMillis() + CACHE_DURATION;
+    public CachePolicy getPolicy() {
+        return policy;
+    }
+
+    public void put(String key, Object data, String provider) {
+        put(key, data, provider, CACHE_DURATION);
+    }
+
+    public void put(String key, Object data, String provider, long ttlMs) {
+        put(key, data, provider, ttlMs, null);
+    }
+
+    public void put(String key, Object data, String provider, long ttlMs, byte[] wire) {
+        if (key == null || ttlMs <= 0) return;
+        long expireAt = System.currentTimeMillis() + ttlMs;
         CacheEntry entry = new CacheEntry(key, data, provider, expireAt);
-        cache.put(key, entry);
-        save();
+        synchronized (wireCache) {
+            wireCache.remove(key);
+        }
+        CacheStore target;
+        try {
+            target = store.get();
+            target.put(entry);
+        } catch (Exception e) {
+            Logger.warn("Cache write failed: " + e.getMessage());
+            return;
+        }
+        synchronized (wireCache) {
+            wireVersion++;
+            wireCache.remove(key);
+            if (wire != null && expireAt > System.currentTimeMillis()) {
+                wireCache.put(key, new WireEntry(wire, expireAt));
+            }
+        }
+        if (target instanceof JournalCacheStore
+                && ((JournalCacheStore) target).needsCompaction()
+                && compactPending.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::compact);
+            } catch (Exception e) {
+                compactPending.set(false);
+            }
+        }
     }
 
-    public synchronized void clear() {
-        cache.clear();
-        if (cacheFile.exists()) {
-            if (!cacheFile.delete()) {
-                Logger.warn("Cache file delete failed");
+    public byte[] getWire(String key) {
+        if (key == null) return null;
+        synchronized (wireCache) {
+            WireEntry entry = wireCache.get(key);
+            if (entry == null) return null;
+            if (entry.expireAt <= System.currentTimeMillis()) {
+                wireCache.remove(key);
+                return null;
             }
+            return entry.bytes;
+        }
+    }
+
+    public long wireVersion() {
+        synchronized (wireCache) {
+            return wireVersion;
         }
     }
 
-    public synchronized List<CacheEntry> list() {
-        return new ArrayList<>(cache.values());
+    public void putWire(String key, byte[] wire, long expireAt, long version) {
+        if (key == null || wire == null || expireAt <= System.currentTimeMillis()) return;
+        synchronized (wireCache) {
+            if (version != wireVersion) return;
+            wireCache.put(key, new WireEntry(wire, expireAt));
+        }
     }
 
-    public void shutdown() {
+    public void clear() {
         try {
-            save();
+            store.get().clear();
         } catch (Exception e) {
-            Logger.warn("Cache save on shutdown failed: " + e.getMessage());
+            Logger.warn("Cache clear failed: " + e.getMessage());
+        }
+        synchronized (wireCache) {
+            wireVersion++;
+            wireCache.clear();
         }
-        scheduler.shutdownNow();
     }
 
-    private synchronized void cleanupExpired() {
-        long now = System.currentTimeMillis();
-        int removed = 0;
-        List<String> keys = new ArrayList<>(cache.keySet());
-        for (String key : keys) {
-            CacheEntry entry = cache.get(key);
-            if (entry != null && entry.getExpireAt() <= now) {
-                cache.remove(key);
-                removed++;
-            }
+    public List<CacheEntry> list() {
+        try {
+            return store.get().list(System.currentTimeMillis());
+        } catch (Exception e) {
+            Logger.warn("Cache list failed: " + e.getMessage());
+            return new ArrayList<>();
         }
-        if (removed > 0) {
-            Logger.info("Cache cleaned: " + removed);
+    }
+
+    public int size() {
+        try {
+            return store.get().count(System.currentTimeMillis());
+        } catch (Exception e) {
+            Logger.warn("Cache count failed: " + e.getMessage());
+            return 0;
         }
     }
 
-    private synchronized void load() {
-        if (!cacheFile.exists()) return;
-        try (FileInputStream input = new FileInputStream(cacheFile)) {
-            byte[] data = new byte[(int) cacheFile.length()];
-            int read = input.read(data);
-            if (read <= 0) return;
-            String json = new String(data, 0, read, StandardCharsets.UTF_8);
-            Type type = new TypeToken<List<CacheEntry>>() {}.getType();
-            List<CacheEntry> list = gson.fromJson(json, type);
-            if (list == null) return;
-            long now = System.currentTimeMillis();
-            for (CacheEntry entry : list) {
-                if (entry.getExpireAt() > now) {
-                    cache.put(entry.getKey(), entry);
+    public void shutdown() {
+        try {
+            scheduler.execute(() -> {
+                try {
+                    CacheStore local = store.get();
+                    local.compact();
+                    local.close();
+                } catch (Exception e) {
+                    Logger.warn("Cache save on shutdown failed: " + e.getMessage());
                 }
-            }
-            Logger.info("Cache loaded: " + cache.size());
-        } catch (Exception e) {
-            Logger.error("Cache load failed: " + e.getMessage(), e);
+            });
+        } catch (RejectedExecutionException ignored) {
         }
+        scheduler.shutdown();
     }
 
-    private synchronized void save() {
+    private void cleanupExpired() {
         try {
-            List<CacheEntry> list = new ArrayList<>(cache.values());
-            String json = gson.toJson(list);
-            try (FileOutputStream output = new FileOutputStream(cacheFile, false)) {
-                output.write(json.getBytes(StandardCharsets.UTF_8));
+            int removed = store.get().removeExpired(System.currentTimeMillis());
+            if (removed > 0) {
+                Logger.info("Cache cleaned: " + removed);
             }
         } catch (Exception e) {
-            Logger.error("Cache save failed: " + e.getMessage(), e);
+            Logger.warn("Cache cleanup failed: " + e.getMessage());
         }
     }
-}
-
-
 
+    private void compact() {
+        try {
+            store.get().compact();
+        } catch (Exception e) {
+            Logger.warn("Cache compaction failed: " + e.getMessage());
+        } finally {
+            compactPending.set(false);
+        }
+    }
 
+    private CacheStore openStore(Context context) {
+        try {
+            RoomCacheStore roomStore = new RoomCacheStore(CacheDatabase.open(context));
+            migrateJournal(roomStore);
+            Logger.info("Cache store: room, entries=" + roomStore.count(System.currentTimeMillis()));
+            return roomStore;
+        } catch (Exception e) {
+            Logger.error("Cache database open failed, fallback to journal: " + e.getMessage(), e);
+        }
+        return new JournalCacheStore(journalFile);
+    }
 
+    private void migrateJournal(RoomCacheStore roomStore) {
+        if (!journalFile.exists()) return;
+        Map<String, CacheEntry> replayed = new HashMap<>();
+        CacheJournal journal = new CacheJournal(journalFile);
+        journal.replay(replayed, System.currentTimeMillis());
+        roomStore.putAll(new ArrayList<>(replayed.values()));
+        journal.delete();
+        Logger.info("Cache journal migrated: " + replayed.size());
+    }
 
+    private void migrateLegacy(CacheStore target) {
+        if (!legacyFile.exists()) return;
+        long now = System.currentTimeMillis();
+        try (Reader reader = new InputStreamReader(new FileInputStream(legacyFile), StandardCharsets.UTF_8)) {
+            Type type = new TypeToken<List<CacheEntry>>() {}.getType();
+            List<CacheEntry> list = gson.fromJson(reader, type);
+            if (list != null) {
+                for (CacheEntry entry : list) {
+                    if (entry != null && entry.getKey() != null && entry.getExpireAt() > now) {
+                        target.put(entry);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Logger.error("Cache legacy migration failed: " + e.getMessage(), e);
+            return;
+        }
+        if (!legacyFile.delete()) {
+            Logger.warn("Cache legacy file delete failed");
+        }
+    }
 
+    private static class WireEntry {
+        final byte[] bytes;
+        final long expireAt;
 
+        WireEntry(byte[] bytes, long expireAt) {
+            this.bytes = bytes;
+            this.expireAt = expireAt;
+        }
+    }
+}
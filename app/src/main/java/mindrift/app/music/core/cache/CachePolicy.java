@@ -0,0 +1,169 @@
+package mindrift.app.music.core.cache;
+
+import android.net.Uri;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class CachePolicy {
+    public static final long NO_CACHE = 0L;
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    private static final long URL_EXPIRY_SLACK = MINUTE;
+    private static final String[] EXPIRY_PARAMS = new String[]{"expires", "expire", "expiry", "deadline"};
+
+    private final long defaultTtl;
+    private final List<Rule> rules = new ArrayList<>();
+
+    public CachePolicy(long defaultTtl) {
+        this.defaultTtl = defaultTtl;
+        addRule(new Rule(null, "lyric", null, null, 7 * DAY));
+        addRule(new Rule(null, "pic", null, null, 7 * DAY));
+        addRule(new Rule("wy", "musicUrl", null, null, 20 * MINUTE));
+    }
+
+    private void addRule(Rule rule) {
+        rules.add(rule);
+    }
+
+    public List<Rule> getRules() {
+        return new ArrayList<>(rules);
+    }
+
+    public long resolveTtl(String source, String action, String quality, String scriptId, Object data, boolean urlExpiryEnabled, long now) {
+        long ttl = defaultTtl;
+        Rule matched = match(source, action, quality, scriptId);
+        if (matched != null) {
+            ttl = matched.ttlMs;
+        }
+        if (ttl <= 0) return NO_CACHE;
+        if (urlExpiryEnabled && "musicUrl".equals(action)) {
+            long expireAt = deriveUrlExpiry(extractUrl(data));
+            if (expireAt > 0) {
+                long urlTtl = expireAt - URL_EXPIRY_SLACK - now;
+                if (urlTtl <= 0) return NO_CACHE;
+                ttl = Math.min(ttl, urlTtl);
+            }
+        }
+        return ttl;
+    }
+
+    private Rule match(String source, String action, String quality, String scriptId) {
+        Rule best = null;
+        int bestScore = -1;
+        for (Rule rule : rules) {
+            if (!rule.matches(source, action, quality, scriptId)) continue;
+            int score = rule.specificity();
+            if (score > bestScore) {
+                best = rule;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    static long deriveUrlExpiry(String url) {
+        if (url == null || !url.startsWith("http")) return 0L;
+        try {
+            Uri uri = Uri.parse(url);
+            Map<String, String> params = new HashMap<>();
+            for (String name : uri.getQueryParameterNames()) {
+                params.put(name.toLowerCase(Locale.US), uri.getQueryParameter(name));
+            }
+            long amzSeconds = parseLong(params.get("x-amz-expires"));
+            long amzIssuedAt = parseAmzDate(params.get("x-amz-date"));
+            if (amzSeconds > 0 && amzIssuedAt > 0) {
+                return amzIssuedAt + amzSeconds * 1000L;
+            }
+            for (String param : EXPIRY_PARAMS) {
+                long value = toEpochMillis(parseLong(params.get(param)));
+                if (value > 0) return value;
+            }
+        } catch (Exception ignored) {
+        }
+        return 0L;
+    }
+
+    private static String extractUrl(Object data) {
+        if (data instanceof String) return (String) data;
+        if (data instanceof Map) {
+            Object url = ((Map<?, ?>) data).get("url");
+            return url instanceof String ? (String) url : null;
+        }
+        return null;
+    }
+
+    private static long toEpochMillis(long value) {
+        if (value <= 0) return 0L;
+        if (value > 100000000000L) return value;
+        if (value > 1000000000L) return value * 1000L;
+        return 0L;
+    }
+
+    private static long parseAmzDate(String value) {
+        if (value == null) return 0L;
+        try {
+            SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            Date date = format.parse(value);
+            return date == null ? 0L : date.getTime();
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null || value.isEmpty()) return 0L;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    public static class Rule {
+        private final String source;
+        private final String action;
+        private final String quality;
+        private final String scriptId;
+        private final long ttlMs;
+
+        public Rule(String source, String action, String quality, String scriptId, long ttlMs) {
+            this.source = source;
+            this.action = action;
+            this.quality = quality;
+            this.scriptId = scriptId;
+            this.ttlMs = ttlMs;
+        }
+
+        public long getTtlMs() {
+            return ttlMs;
+        }
+
+        boolean matches(String source, String action, String quality, String scriptId) {
+            return same(this.source, source)
+                    && same(this.action, action)
+                    && same(this.quality, quality)
+                    && same(this.scriptId, scriptId);
+        }
+
+        int specificity() {
+            int score = 0;
+            if (scriptId != null) score += 8;
+            if (source != null) score += 4;
+            if (action != null) score += 2;
+            if (quality != null) score += 1;
+            return score;
+        }
+
+        private static boolean same(String expected, String actual) {
+            return expected == null || expected.equals(actual);
+        }
+    }
+}
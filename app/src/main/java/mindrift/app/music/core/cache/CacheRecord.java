@@ -0,0 +1,24 @@
+package mindrift.app.music.core.cache;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+@Entity(tableName = "resolve_cache", indices = {@Index(value = {"expire_at"})})
+public class CacheRecord {
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "cache_key")
+    public String key = "";
+
+    @ColumnInfo(name = "data_json")
+    public String dataJson;
+
+    @ColumnInfo(name = "provider")
+    public String provider;
+
+    @ColumnInfo(name = "expire_at")
+    public long expireAt;
+}
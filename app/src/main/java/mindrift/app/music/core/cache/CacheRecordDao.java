@@ -0,0 +1,34 @@
+package mindrift.app.music.core.cache;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import java.util.List;
+
+@Dao
+public interface CacheRecordDao {
+    @Query("SELECT * FROM resolve_cache WHERE cache_key = :key AND expire_at > :now LIMIT 1")
+    CacheRecord find(String key, long now);
+
+    @Query("SELECT * FROM resolve_cache WHERE expire_at > :now ORDER BY expire_at DESC")
+    List<CacheRecord> listLive(long now);
+
+    @Query("SELECT COUNT(*) FROM resolve_cache WHERE expire_at > :now")
+    int countLive(long now);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(CacheRecord record);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertAll(List<CacheRecord> records);
+
+    @Query("DELETE FROM resolve_cache WHERE cache_key = :key")
+    int delete(String key);
+
+    @Query("DELETE FROM resolve_cache WHERE expire_at <= :now")
+    int deleteExpired(long now);
+
+    @Query("DELETE FROM resolve_cache")
+    void deleteAll();
+}
@@ -0,0 +1,15 @@
+package mindrift.app.music.core.cache;
+
+import java.util.List;
+
+interface CacheStore {
+    CacheEntry get(String key, long now);
+    void put(CacheEntry entry);
+    void remove(String key);
+    int removeExpired(long now);
+    void clear();
+    List<CacheEntry> list(long now);
+    int count(long now);
+    void compact();
+    void close();
+}
@@ -0,0 +1,107 @@
+package mindrift.app.music.core.cache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import mindrift.app.music.utils.Logger;
+
+class JournalCacheStore implements CacheStore {
+    private static final int COMPACT_MIN_RECORDS = 256;
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final CacheJournal journal;
+
+    JournalCacheStore(File journalFile) {
+        this.journal = new CacheJournal(journalFile);
+        int records = journal.replay(cache, System.currentTimeMillis());
+        Logger.info("Cache journal replayed: " + cache.size() + " (records=" + records + ")");
+    }
+
+    @Override
+    public CacheEntry get(String key, long now) {
+        CacheEntry entry = cache.get(key);
+        if (entry == null) return null;
+        if (entry.getExpireAt() <= now) {
+            cache.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    @Override
+    public void put(CacheEntry entry) {
+        synchronized (journal) {
+            cache.put(entry.getKey(), entry);
+            journal.appendPut(entry);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        synchronized (journal) {
+            if (cache.remove(key) != null) {
+                journal.appendRemove(key);
+            }
+        }
+    }
+
+    @Override
+    public int removeExpired(long now) {
+        int removed = 0;
+        for (Map.Entry<String, CacheEntry> item : cache.entrySet()) {
+            CacheEntry entry = item.getValue();
+            if (entry != null && entry.getExpireAt() <= now && cache.remove(item.getKey(), entry)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (journal) {
+            cache.clear();
+            journal.delete();
+        }
+    }
+
+    @Override
+    public List<CacheEntry> list(long now) {
+        List<CacheEntry> entries = new ArrayList<>(cache.size());
+        for (CacheEntry entry : cache.values()) {
+            if (entry.getExpireAt() > now) entries.add(entry);
+        }
+        return entries;
+    }
+
+    @Override
+    public int count(long now) {
+        int count = 0;
+        for (CacheEntry entry : cache.values()) {
+            if (entry.getExpireAt() > now) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void compact() {
+        synchronized (journal) {
+            if (!needsCompaction()) return;
+            int before = journal.getRecordCount();
+            removeExpired(System.currentTimeMillis());
+            journal.compact(new ArrayList<>(cache.values()));
+            Logger.info("Cache journal compacted: " + before + " -> " + journal.getRecordCount());
+        }
+    }
+
+    boolean needsCompaction() {
+        int records = journal.getRecordCount();
+        return records > COMPACT_MIN_RECORDS && records > cache.size() * 2;
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+}
@@ -0,0 +1,103 @@
+package mindrift.app.music.core.cache;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.List;
+import mindrift.app.music.utils.Logger;
+
+class RoomCacheStore implements CacheStore {
+    private final Gson gson = new Gson();
+    private final CacheDatabase database;
+    private final CacheRecordDao dao;
+
+    RoomCacheStore(CacheDatabase database) {
+        this.database = database;
+        this.dao = database.cacheRecordDao();
+    }
+
+    @Override
+    public CacheEntry get(String key, long now) {
+        CacheRecord record = dao.find(key, now);
+        return record == null ? null : toEntry(record);
+    }
+
+    @Override
+    public void put(CacheEntry entry) {
+        dao.upsert(toRecord(entry));
+    }
+
+    void putAll(List<CacheEntry> entries) {
+        if (entries == null || entries.isEmpty()) return;
+        List<CacheRecord> records = new ArrayList<>(entries.size());
+        for (CacheEntry entry : entries) {
+            records.add(toRecord(entry));
+        }
+        dao.upsertAll(records);
+    }
+
+    @Override
+    public void remove(String key) {
+        dao.delete(key);
+    }
+
+    @Override
+    public int removeExpired(long now) {
+        return dao.deleteExpired(now);
+    }
+
+    @Override
+    public void clear() {
+        dao.deleteAll();
+    }
+
+    @Override
+    public List<CacheEntry> list(long now) {
+        List<CacheRecord> records = dao.listLive(now);
+        List<CacheEntry> entries = new ArrayList<>(records == null ? 0 : records.size());
+        if (records != null) {
+            for (CacheRecord record : records) {
+                entries.add(toEntry(record));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public int count(long now) {
+        return dao.countLive(now);
+    }
+
+    @Override
+    public void compact() {
+    }
+
+    @Override
+    public void close() {
+        try {
+            database.close();
+        } catch (Exception e) {
+            Logger.warn("Cache database close failed: " + e.getMessage());
+        }
+    }
+
+    private CacheRecord toRecord(CacheEntry entry) {
+        CacheRecord record = new CacheRecord();
+        record.key = entry.getKey();
+        record.dataJson = gson.toJson(entry.getData());
+        record.provider = entry.getProvider();
+        record.expireAt = entry.getExpireAt();
+        return record;
+    }
+
+    private CacheEntry toEntry(CacheRecord record) {
+        Object data = null;
+        if (record.dataJson != null) {
+            try {
+                data = gson.fromJson(record.dataJson, Object.class);
+            } catch (Exception e) {
+                Logger.warn("Cache record decode failed: " + record.key);
+            }
+        }
+        return new CacheEntry(record.key, data, record.provider, record.expireAt);
+    }
+}
@@ -1,12 +1,8 @@
 package mindrift.app.music.core.engine;
 
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Base64;
 import android.webkit.JavascriptInterface;
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
 import java.security.spec.X509EncodedKeySpec;
@@ -32,8 +28,8 @@ public class LxNativeImpl implements LxNativeInterface {
     private final Gson gson = new Gson();
     private final HttpClient httpClient = new HttpClient();
     private final ScriptEventListener eventListener;
-    private final Handler timeoutHandler = new Handler(Looper.getMainLooper());
     private final Map<String, Call> pendingRequests = new ConcurrentHashMap<>();
+    private final Map<String, String> requestOwners = new ConcurrentHashMap<>();
     private volatile boolean closed = false;
     private static final int LOG_LIMIT = 2000;
 
@@ -50,7 +46,6 @@ public class LxNativeImpl implements LxNativeInterface {
 
     public void shutdown() {
         closed = true;
-        timeoutHandler.removeCallbacksAndMessages(null);
         for (Call call : pendingRequests.values()) {
             try {
                 call.cancel();
@@ -58,6 +53,7 @@ public class LxNativeImpl implements LxNativeInterface {
             }
         }
         pendingRequests.clear();
+        requestOwners.clear();
         httpClient.shutdown();
     }
 
@@ -102,11 +98,19 @@ public class LxNativeImpl implements LxNativeInterface {
         return null;
     }
 
+    public void cancelOwnedRequests(String ownerKey) {
+        if (ownerKey == null) return;
+        for (Map.Entry<String, String> entry : requestOwners.entrySet()) {
+            if (ownerKey.equals(entry.getValue())) {
+                nativeCall(scriptContext.getNativeKey(), "cancelRequest", gson.toJson(entry.getKey()));
+            }
+        }
+    }
+
     @JavascriptInterface
     public void setTimeout(double id, double timeoutMs) {
-        int timeout = (int) Math.max(0, Math.round(timeoutMs));
-        String payload = gson.toJson((int) Math.round(id));
-        timeoutHandler.postDelayed(() -> sendNativeEvent("__set_timeout__", payload), timeout);
+        if (closed) return;
+        scriptContext.scheduleTimer(Math.round(id), Math.max(0L, Math.round(timeoutMs)));
     }
 
     @JavascriptInterface
@@ -153,8 +157,7 @@ public class LxNativeImpl implements LxNativeInterface {
                 response.put("statusMessage", "");
                 response.put("headers", headers != null ? headers : new HashMap<>());
                 response.put("bytes", body != null ? body.getBytes(StandardCharsets.UTF_8).length : 0);
-                response.put("body", parseBody(body));
-                invokeJsCallback(callbackId, null, gson.toJson(response));
+                invokeJsCallback(callbackId, null, gson.toJson(response), body == null ? "" : body);
             }
 
             @Override
@@ -189,7 +192,7 @@ public class LxNativeImpl implements LxNativeInterface {
             response.put("statusMessage", "");
             response.put("headers", responseData.headers != null ? responseData.headers : new HashMap<>());
             response.put("bytes", responseData.body != null ? responseData.body.getBytes(StandardCharsets.UTF_8).length : 0);
-            response.put("body", parseBody(responseData.body));
+            response.put("body", responseData.body == null ? "" : responseData.body);
             wrapper.put("resp", response);
         } catch (Exception e) {
             Logger.error("HTTP sync request failed: " + e.getMessage(), e);
@@ -456,42 +459,20 @@ public class LxNativeImpl implements LxNativeInterface {
         return null;
     }
 
-    private Object parseBody(String body) {
-        if (body == null) return "";
-        try {
-            JsonElement element = JsonParser.parseString(body);
-            return gson.fromJson(element, Object.class);
-        } catch (Exception ignored) {
-            return body;
-        }
+    private void invokeJsCallback(String callbackId, String errorJson, String responseJson) {
+        scriptContext.callFunctionAsync("__lx_invokeCallback", callbackId, errorJson, responseJson);
     }
 
-    private void invokeJsCallback(String callbackId, String errorJson, String responseJson) {
-        StringBuilder js = new StringBuilder();
-        js.append("typeof __lx_invokeCallback === 'function' && __lx_invokeCallback(")
-                .append(toJsStringLiteral(callbackId))
-                .append(", ")
-                .append(toJsNullableStringLiteral(errorJson))
-                .append(", ")
-                .append(toJsNullableStringLiteral(responseJson))
-                .append(");");
-        scriptContext.evaluateAsync(js.toString());
-    }
-
-    private void sendNativeEvent(String action, String payloadJson) {
-        StringBuilder js = new StringBuilder();
-        js.append("__lx_native__(")
-                .append(toJsStringLiteral(scriptContext.getNativeKey()))
-                .append(", ")
-                .append(toJsStringLiteral(action))
-                .append(", ");
-        if (payloadJson == null) {
-            js.append("null");
-        } else {
-            js.append(toJsStringLiteral(payloadJson));
-        }
-        js.append(");");
-        scriptContext.evaluateAsync(js.toString());
+    private void invokeJsCallback(String callbackId, String errorJson, String responseJson, String rawBody) {
+        scriptContext.callFunctionAsync("__lx_invokeCallback", callbackId, errorJson, responseJson, rawBody);
+    }
+
+    private void sendNativeEvent(String action, Object payload) {
+        sendNativeEvent(action, payload, null);
+    }
+
+    private void sendNativeEvent(String action, Object payload, String ownerKey) {
+        scriptContext.callNativeAsync(action, payload, ownerKey);
     }
 
     private void handleInitEvent(String dataJson) {
@@ -520,7 +501,7 @@ public class LxNativeImpl implements LxNativeInterface {
             if (requestKeyObj == null) return;
             String requestKey = String.valueOf(requestKeyObj);
             Logger.info("[NativeCall] response requestKey=" + requestKey);
-            scriptContext.completeAsyncResult(requestKey, dataJson);
+            scriptContext.completeAsyncResult(requestKey, payload);
         } catch (Exception e) {
             Logger.warn("Script response parse error: " + e.getMessage());
         }
@@ -531,6 +512,7 @@ public class LxNativeImpl implements LxNativeInterface {
             Object keyObj = gson.fromJson(dataJson, Object.class);
             if (keyObj == null) return;
             String requestKey = String.valueOf(keyObj);
+            requestOwners.remove(requestKey);
             Call call = pendingRequests.remove(requestKey);
             if (call != null) {
                 call.cancel();
@@ -562,34 +544,36 @@ public class LxNativeImpl implements LxNativeInterface {
                 return;
             }
             Logger.info("Script request start: key=" + requestKey + " url=" + url + " " + summarizeOptions(options));
-            Call call = httpClient.requestWithCall(url, options, new HttpClient.NetworkCallback() {
-                @Override
-                public void onSuccess(int code, String body, Map<String, String> headers) {
-                    pendingRequests.remove(requestKey);
-                    Logger.info("Script request success: key=" + requestKey + " code=" + code + " bytes=" + (body == null ? 0 : body.length()));
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("statusCode", code);
-                    response.put("statusMessage", "");
-                    response.put("headers", headers != null ? headers : new HashMap<>());
-                    response.put("body", parseBody(body));
-                    Map<String, Object> wrapper = new HashMap<>();
-                    wrapper.put("requestKey", requestKey);
-                    wrapper.put("error", null);
-                    wrapper.put("response", response);
-                    sendNativeEvent("response", gson.toJson(wrapper));
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    pendingRequests.remove(requestKey);
-                    Logger.warn("Script request failed: key=" + requestKey + " message=" + e.getMessage());
-                    Map<String, Object> wrapper = new HashMap<>();
-                    wrapper.put("requestKey", requestKey);
-                    wrapper.put("error", e.getMessage() != null ? e.getMessage() : "Request failed");
-                    wrapper.put("response", null);
-                    sendNativeEvent("response", gson.toJson(wrapper));
-                }
-            });
+            String ownerKey = scriptContext.getActiveRequestKey();
+            if (ownerKey != null) {
+                requestOwners.put(requestKey, ownerKey);
+            }
+            Call call;
+            if (Boolean.TRUE.equals(options.get("binary"))) {
+                call = httpClient.requestBytesWithCall(url, options, new HttpClient.BytesCallback() {
+                    @Override
+                    public void onSuccess(int code, byte[] body, Map<String, String> headers) {
+                        deliverScriptResponse(requestKey, code, headers, body == null ? new byte[0] : body, body == null ? 0 : body.length);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        deliverScriptFailure(requestKey, e);
+                    }
+                });
+            } else {
+                call = httpClient.requestWithCall(url, options, new HttpClient.NetworkCallback() {
+                    @Override
+                    public void onSuccess(int code, String body, Map<String, String> headers) {
+                        deliverScriptResponse(requestKey, code, headers, body == null ? "" : body, body == null ? 0 : body.length());
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        deliverScriptFailure(requestKey, e);
+                    }
+                });
+            }
             if (call != null) {
                 pendingRequests.put(requestKey, call);
             }
@@ -598,6 +582,32 @@ public class LxNativeImpl implements LxNativeInterface {
         }
     }
 
+    private void deliverScriptResponse(String requestKey, int code, Map<String, String> headers, Object body, int size) {
+        pendingRequests.remove(requestKey);
+        String owner = requestOwners.remove(requestKey);
+        Logger.info("Script request success: key=" + requestKey + " code=" + code + " bytes=" + size);
+        Map<String, Object> response = new HashMap<>();
+        response.put("statusCode", code);
+        response.put("statusMessage", "");
+        response.put("headers", headers != null ? headers : new HashMap<>());
+        Map<String, Object> wrapper = new HashMap<>();
+        wrapper.put("requestKey", requestKey);
+        wrapper.put("error", null);
+        wrapper.put("response", response);
+        scriptContext.callNativeAsync("response", gson.toJson(wrapper), body, owner);
+    }
+
+    private void deliverScriptFailure(String requestKey, Exception e) {
+        pendingRequests.remove(requestKey);
+        String owner = requestOwners.remove(requestKey);
+        Logger.warn("Script request failed: key=" + requestKey + " message=" + e.getMessage());
+        Map<String, Object> wrapper = new HashMap<>();
+        wrapper.put("requestKey", requestKey);
+        wrapper.put("error", e.getMessage() != null ? e.getMessage() : "Request failed");
+        wrapper.put("response", null);
+        sendNativeEvent("response", gson.toJson(wrapper), owner);
+    }
+
     private void maybeInjectSourceForCompat(String url, Map<String, Object> options) {
         if (url == null || options == null) return;
         String lowerUrl = url.toLowerCase();
@@ -651,28 +661,6 @@ public class LxNativeImpl implements LxNativeInterface {
         }
     }
 
-    private String toJsNullableStringLiteral(String value) {
-        if (value == null) {
-            return "null";
-        }
-        return toJsStringLiteral(value);
-    }
-
-    private String toJsStringLiteral(String value) {
-        if (value == null) {
-            return "null";
-        }
-        String escaped = value
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t")
-                .replace("\u2028", "\\u2028")
-                .replace("\u2029", "\\u2029");
-        return "\"" + escaped + "\"";
-    }
-
     private String trimLog(String value) {
         if (value == null) return "null";
         if (value.length() <= LOG_LIMIT) return value;
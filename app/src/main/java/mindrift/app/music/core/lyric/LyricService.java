@@ -9,6 +9,7 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import mindrift.app.music.core.network.HttpClient;
@@ -20,12 +21,12 @@ public class LyricService {
     private static final int MAX_CACHE_SIZE = 100;
     private final HttpClient httpClient = new HttpClient();
     private final Gson gson = new Gson();
-    private final Map<String, CacheEntry<LyricResult>> cache = new LinkedHashMap<String, CacheEntry<LyricResult>>(16, 0.75f, true) {
+    private final Map<String, CacheEntry<LyricResult>> cache = Collections.synchronizedMap(new LinkedHashMap<String, CacheEntry<LyricResult>>(16, 0.75f, true) {
         @Override
         protected boolean removeEldestEntry(Map.Entry<String, CacheEntry<LyricResult>> eldest) {
             return size() > MAX_CACHE_SIZE;
         }
-    };
+    });
 
     public LyricResult getLyric(String platform, String id) {
         String normalizedPlatform = PlatformUtils.normalize(platform);
@@ -0,0 +1,197 @@
+package mindrift.app.music.core.network;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import mindrift.app.music.utils.Logger;
+import okhttp3.Dns;
+import okhttp3.HttpUrl;
+
+class CachingDns implements Dns {
+    private static final long TTL_MS = 10 * 60 * 1000L;
+    private static final long STALE_MS = 24 * 60 * 60 * 1000L;
+    private static final long SAVE_DELAY_MS = 30 * 1000L;
+    private static final int MAX_HOSTS = 64;
+
+    private final Gson gson = new Gson();
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    private final File file;
+    private final ScheduledExecutorService scheduler;
+
+    CachingDns(File file, ScheduledExecutorService scheduler) {
+        this.file = file;
+        this.scheduler = scheduler;
+        load();
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        long now = System.currentTimeMillis();
+        Record record = records.get(hostname);
+        if (record != null && record.expireAt > now) {
+            List<InetAddress> cached = record.toAddresses();
+            if (!cached.isEmpty()) {
+                record.lastUsedAt = now;
+                return cached;
+            }
+        }
+        try {
+            List<InetAddress> resolved = Dns.SYSTEM.lookup(hostname);
+            store(hostname, resolved, now);
+            return resolved;
+        } catch (UnknownHostException e) {
+            if (record != null && now - record.expireAt < STALE_MS) {
+                List<InetAddress> stale = record.toAddresses();
+                if (!stale.isEmpty()) {
+                    Logger.warn("DNS lookup failed, serving stale entry: " + hostname);
+                    record.lastUsedAt = now;
+                    return stale;
+                }
+            }
+            throw e;
+        }
+    }
+
+    void rememberOrigin(String hostname, String scheme, int port) {
+        Record record = records.get(hostname);
+        if (record == null || (scheme.equals(record.scheme) && record.port == port)) return;
+        record.scheme = scheme;
+        record.port = port;
+        scheduleSave();
+    }
+
+    List<HttpUrl> recentOrigins(int limit) {
+        List<Record> sorted = new ArrayList<>(records.values());
+        Collections.sort(sorted, (a, b) -> Long.compare(b.lastUsedAt, a.lastUsedAt));
+        List<HttpUrl> origins = new ArrayList<>();
+        for (Record record : sorted) {
+            if (origins.size() >= limit) break;
+            if (record.scheme == null || record.port <= 0) continue;
+            try {
+                origins.add(new HttpUrl.Builder().scheme(record.scheme).host(record.host).port(record.port).build());
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        return origins;
+    }
+
+    int size() {
+        return records.size();
+    }
+
+    void flush() {
+        saveScheduled.set(false);
+        save();
+    }
+
+    private void store(String hostname, List<InetAddress> addresses, long now) {
+        if (addresses == null || addresses.isEmpty()) return;
+        Record record = new Record();
+        record.host = hostname;
+        record.addresses = new ArrayList<>();
+        for (InetAddress address : addresses) {
+            record.addresses.add(address.getHostAddress());
+        }
+        record.expireAt = now + TTL_MS;
+        record.lastUsedAt = now;
+        Record previous = records.get(hostname);
+        if (previous != null) {
+            record.scheme = previous.scheme;
+            record.port = previous.port;
+        }
+        records.put(hostname, record);
+        trim();
+        scheduleSave();
+    }
+
+    private void trim() {
+        if (records.size() <= MAX_HOSTS) return;
+        List<Record> sorted = new ArrayList<>(records.values());
+        Collections.sort(sorted, (a, b) -> Long.compare(a.lastUsedAt, b.lastUsedAt));
+        for (int i = 0; i < sorted.size() - MAX_HOSTS; i++) {
+            records.remove(sorted.get(i).host);
+        }
+    }
+
+    private void scheduleSave() {
+        if (file == null || scheduler == null) return;
+        if (!saveScheduled.compareAndSet(false, true)) return;
+        try {
+            scheduler.schedule(this::flush, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            saveScheduled.set(false);
+        }
+    }
+
+    private void load() {
+        if (file == null || !file.exists()) return;
+        Type type = new TypeToken<List<Record>>() {}.getType();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            List<Record> saved = gson.fromJson(reader, type);
+            if (saved == null) return;
+            long now = System.currentTimeMillis();
+            for (Record record : saved) {
+                if (record == null || record.host == null || record.addresses == null) continue;
+                if (now - record.expireAt >= STALE_MS) continue;
+                records.put(record.host, record);
+            }
+            Logger.info("DNS cache loaded: " + records.size());
+        } catch (Exception e) {
+            Logger.warn("DNS cache load failed: " + e.getMessage());
+        }
+    }
+
+    private synchronized void save() {
+        if (file == null) return;
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp, false), StandardCharsets.UTF_8)) {
+            gson.toJson(new ArrayList<>(records.values()), writer);
+        } catch (Exception e) {
+            Logger.warn("DNS cache save failed: " + e.getMessage());
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Logger.warn("DNS cache rename failed");
+        }
+    }
+
+    private static class Record {
+        String host;
+        List<String> addresses;
+        long expireAt;
+        long lastUsedAt;
+        String scheme;
+        int port;
+
+        List<InetAddress> toAddresses() {
+            if (addresses == null || addresses.isEmpty()) return Collections.emptyList();
+            List<InetAddress> result = new ArrayList<>(addresses.size());
+            for (String address : addresses) {
+                try {
+                    result.add(InetAddress.getByName(address));
+                } catch (UnknownHostException ignored) {
+                }
+            }
+            return result;
+        }
+    }
+}
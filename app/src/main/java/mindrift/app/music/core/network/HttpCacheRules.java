@@ -0,0 +1,75 @@
+package mindrift.app.music.core.network;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public class HttpCacheRules implements Interceptor {
+    private final List<Rule> rules = new ArrayList<>();
+
+    public HttpCacheRules() {
+        addRule(new Rule("lyrics.kugou.com", 24 * 60 * 60));
+        addRule(new Rule("krcs.kugou.com", 24 * 60 * 60));
+    }
+
+    private void addRule(Rule rule) {
+        rules.add(rule);
+    }
+
+    public List<Rule> getRules() {
+        return new ArrayList<>(rules);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        if (!"GET".equals(request.method()) || !response.isSuccessful()) return response;
+        if (response.header("Cache-Control") != null || response.header("Expires") != null) return response;
+        Rule rule = match(request.url().host());
+        if (rule == null || rule.maxAgeSeconds <= 0) return response;
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "public, max-age=" + rule.maxAgeSeconds)
+                .build();
+    }
+
+    private Rule match(String host) {
+        if (host == null) return null;
+        String lower = host.toLowerCase(Locale.US);
+        Rule best = null;
+        for (Rule rule : rules) {
+            if (!rule.matches(lower)) continue;
+            if (best == null || rule.hostSuffix.length() > best.hostSuffix.length()) {
+                best = rule;
+            }
+        }
+        return best;
+    }
+
+    public static class Rule {
+        private final String hostSuffix;
+        private final int maxAgeSeconds;
+
+        public Rule(String hostSuffix, int maxAgeSeconds) {
+            this.hostSuffix = hostSuffix == null ? "" : hostSuffix.toLowerCase(Locale.US);
+            this.maxAgeSeconds = maxAgeSeconds;
+        }
+
+        public String getHostSuffix() {
+            return hostSuffix;
+        }
+
+        public int getMaxAgeSeconds() {
+            return maxAgeSeconds;
+        }
+
+        boolean matches(String host) {
+            return host.equals(hostSuffix) || host.endsWith("." + hostSuffix);
+        }
+    }
+}
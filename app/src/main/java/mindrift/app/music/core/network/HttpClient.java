@@ -1,7 +1,12 @@
 package mindrift.app.music.core.network;
 
+import android.os.SystemClock;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import mindrift.app.music.utils.Logger;
 import okhttp3.Call;
@@ -9,31 +14,29 @@ import okhttp3.Callback;
 import okhttp3.FormBody;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
-import okhttp3.logging.HttpLoggingInterceptor;
 
 public class HttpClient {
-    private final OkHttpClient client;
-
-    public HttpClient() {
-        HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message -> Logger.debug("[HTTP] " + message));
-        logging.setLevel(HttpLoggingInterceptor.Level.BASIC);
-        client = new OkHttpClient.Builder()
-                .connectTimeout(NetworkConfig.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS)
-                .readTimeout(NetworkConfig.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS)
-                .writeTimeout(NetworkConfig.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS)
-                .addInterceptor(logging)
-                .build();
-    }
+    private static final Map<String, Semaphore> syncPermits = new ConcurrentHashMap<>();
+    private final Set<Call> activeCalls = ConcurrentHashMap.newKeySet();
 
     public interface NetworkCallback {
         void onSuccess(int code, String body, Map<String, String> headers);
         void onFailure(Exception e);
     }
 
+    public interface BytesCallback {
+        void onSuccess(int code, byte[] body, Map<String, String> headers);
+        void onFailure(Exception e);
+    }
+
+    public interface StreamCallback {
+        void onResponse(int code, InputStream body, long contentLength, Map<String, String> headers) throws IOException;
+        void onFailure(Exception e);
+    }
+
     public static class ResponseData {
         public final int code;
         public final String body;
@@ -52,50 +55,109 @@ public class HttpClient {
 
     public Call requestWithCall(String url, Map<String, Object> options, NetworkCallback callback) {
         try {
-            String method = String.valueOf(options.getOrDefault("method", "GET"));
-            Map<String, String> headers = HttpUtils.coerceHeaders(options.get("headers"));
-            String body = options.get("body") instanceof String ? (String) options.get("body") : null;
-            Map<String, Object> form = HttpUtils.castMap(options.get("form"));
-            Map<String, Object> formData = HttpUtils.castMap(options.get("formData"));
-            Integer timeoutMs = HttpUtils.readTimeout(options.get("timeout"));
-
-            logRequest(method, url, headers, body, form, formData);
-
-            Request.Builder requestBuilder = new Request.Builder().url(url);
-
-            if (method.equalsIgnoreCase("GET")) {
-                requestBuilder.get();
-            } else {
-                RequestBody requestBody = buildRequestBody(body, form, formData);
-                if (method.equalsIgnoreCase("POST")) requestBuilder.post(requestBody);
-                else if (method.equalsIgnoreCase("PUT")) requestBuilder.put(requestBody);
-                else if (method.equalsIgnoreCase("DELETE")) requestBuilder.delete(requestBody);
-                else requestBuilder.method(method.toUpperCase(), requestBody);
-            }
+            Request request = buildRequest(url, options);
+            String method = request.method();
+            long maxBytes = HttpUtils.readMaxBytes(options.get("maxBytes"), NetworkConfig.MAX_RESPONSE_BYTES);
+            Call call = newCall(request, HttpUtils.readTimeout(options.get("timeout")));
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    activeCalls.remove(call);
+                    Logger.error("HTTP <- failed " + method + " " + url + ": " + e.getMessage(), e);
+                    callback.onFailure(e);
+                }
 
-            HttpUtils.ensureUserAgent(headers);
-            if (headers != null) {
-                for (Map.Entry<String, String> entry : headers.entrySet()) {
-                    requestBuilder.header(entry.getKey(), entry.getValue());
+                @Override
+                public void onResponse(Call call, Response response) throws IOException {
+                    activeCalls.remove(call);
+                    String responseBody;
+                    Map<String, String> responseHeaders;
+                    int code;
+                    try (Response r = response) {
+                        responseBody = HttpUtils.readString(r.body(), maxBytes);
+                        responseHeaders = HttpUtils.readHeaders(r);
+                        code = r.code();
+                    } catch (IOException e) {
+                        Logger.error("HTTP <- read failed " + method + " " + url + ": " + e.getMessage(), e);
+                        callback.onFailure(e);
+                        return;
+                    }
+                    logResponse(method, url, code, responseHeaders, responseBody);
+                    callback.onSuccess(code, responseBody, responseHeaders);
                 }
-            }
+            });
+            return call;
+        } catch (Exception e) {
+            callback.onFailure(e);
+            return null;
+        }
+    }
 
-            OkHttpClient requestClient = HttpUtils.applyTimeouts(client, timeoutMs);
-            Call call = requestClient.newCall(requestBuilder.build());
+    public Call requestBytesWithCall(String url, Map<String, Object> options, BytesCallback callback) {
+        try {
+            Request request = buildRequest(url, options);
+            String method = request.method();
+            long maxBytes = HttpUtils.readMaxBytes(options.get("maxBytes"), NetworkConfig.MAX_RESPONSE_BYTES);
+            Call call = newCall(request, HttpUtils.readTimeout(options.get("timeout")));
             call.enqueue(new Callback() {
                 @Override
                 public void onFailure(Call call, IOException e) {
+                    activeCalls.remove(call);
                     Logger.error("HTTP <- failed " + method + " " + url + ": " + e.getMessage(), e);
                     callback.onFailure(e);
                 }
 
                 @Override
                 public void onResponse(Call call, Response response) throws IOException {
+                    activeCalls.remove(call);
+                    byte[] responseBody;
+                    Map<String, String> responseHeaders;
+                    int code;
                     try (Response r = response) {
-                        String responseBody = r.body() != null ? r.body().string() : "";
-                        Map<String, String> responseHeaders = HttpUtils.readHeaders(r);
-                        logResponse(method, url, r.code(), responseHeaders, responseBody);
-                        callback.onSuccess(r.code(), responseBody, responseHeaders);
+                        responseBody = HttpUtils.readBytes(r.body(), maxBytes);
+                        responseHeaders = HttpUtils.readHeaders(r);
+                        code = r.code();
+                    } catch (IOException e) {
+                        Logger.error("HTTP <- read failed " + method + " " + url + ": " + e.getMessage(), e);
+                        callback.onFailure(e);
+                        return;
+                    }
+                    Logger.info("HTTP <- " + code + " " + method + " " + url + " bytes=" + responseBody.length);
+                    callback.onSuccess(code, responseBody, responseHeaders);
+                }
+            });
+            return call;
+        } catch (Exception e) {
+            callback.onFailure(e);
+            return null;
+        }
+    }
+
+    public Call requestStreamWithCall(String url, Map<String, Object> options, StreamCallback callback) {
+        try {
+            Request request = buildRequest(url, options);
+            String method = request.method();
+            long maxBytes = HttpUtils.readMaxBytes(options.get("maxBytes"), NetworkConfig.MAX_RESPONSE_BYTES);
+            Call call = newCall(request, HttpUtils.readTimeout(options.get("timeout")));
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    activeCalls.remove(call);
+                    Logger.error("HTTP <- failed " + method + " " + url + ": " + e.getMessage(), e);
+                    callback.onFailure(e);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    activeCalls.remove(call);
+                    try (Response r = response;
+                         InputStream input = HttpUtils.openBody(r.body(), maxBytes)) {
+                        long contentLength = r.body() != null ? r.body().contentLength() : 0L;
+                        Logger.info("HTTP <- " + r.code() + " " + method + " " + url + " stream length=" + contentLength);
+                        callback.onResponse(r.code(), input, contentLength, HttpUtils.readHeaders(r));
+                    } catch (IOException e) {
+                        Logger.error("HTTP <- stream failed " + method + " " + url + ": " + e.getMessage(), e);
+                        callback.onFailure(e);
                     }
                 }
             });
@@ -107,12 +169,58 @@ public class HttpClient {
     }
 
     public ResponseData requestSync(String url, Map<String, Object> options) throws Exception {
+        Request request = buildRequest(url, options);
+        String method = request.method();
+        Integer timeoutMs = HttpUtils.readTimeout(options.get("timeout"));
+        long maxBytes = HttpUtils.readMaxBytes(options.get("maxBytes"), NetworkConfig.MAX_RESPONSE_BYTES);
+        Semaphore permits = syncPermits.computeIfAbsent(request.url().host(),
+                host -> new Semaphore(NetworkConfig.MAX_REQUESTS_PER_HOST, true));
+        long budgetMs = timeoutMs != null && timeoutMs > 0 ? timeoutMs : NetworkConfig.DEFAULT_TIMEOUT;
+        long deadline = SystemClock.elapsedRealtime() + budgetMs;
+        if (!permits.tryAcquire(budgetMs, TimeUnit.MILLISECONDS)) {
+            throw new IOException("Too many requests to host: " + request.url().host());
+        }
+        long remainingMs = deadline - SystemClock.elapsedRealtime();
+        if (remainingMs <= 0) {
+            permits.release();
+            throw new IOException("Timed out waiting for host: " + request.url().host());
+        }
+        Call call = newCall(request, (int) remainingMs);
+        try (Response response = call.execute()) {
+            String responseBody = HttpUtils.readString(response.body(), maxBytes);
+            Map<String, String> responseHeaders = HttpUtils.readHeaders(response);
+            logResponse(method, url, response.code(), responseHeaders, responseBody);
+            return new ResponseData(response.code(), responseBody, responseHeaders);
+        } finally {
+            activeCalls.remove(call);
+            permits.release();
+        }
+    }
+
+    public void shutdown() {
+        for (Call call : activeCalls) {
+            try {
+                call.cancel();
+            } catch (Exception e) {
+                Logger.warn("HTTP client shutdown failed: " + e.getMessage());
+            }
+        }
+        activeCalls.clear();
+    }
+
+    private Call newCall(Request request, Integer timeoutMs) {
+        Call call = HttpEngine.client().newCall(request);
+        HttpUtils.applyTimeout(call, timeoutMs);
+        activeCalls.add(call);
+        return call;
+    }
+
+    private Request buildRequest(String url, Map<String, Object> options) {
         String method = String.valueOf(options.getOrDefault("method", "GET"));
         Map<String, String> headers = HttpUtils.coerceHeaders(options.get("headers"));
         String body = options.get("body") instanceof String ? (String) options.get("body") : null;
         Map<String, Object> form = HttpUtils.castMap(options.get("form"));
         Map<String, Object> formData = HttpUtils.castMap(options.get("formData"));
-        Integer timeoutMs = HttpUtils.readTimeout(options.get("timeout"));
 
         logRequest(method, url, headers, body, form, formData);
 
@@ -134,24 +242,7 @@ public class HttpClient {
                 requestBuilder.header(entry.getKey(), entry.getValue());
             }
         }
-
-        OkHttpClient requestClient = HttpUtils.applyTimeouts(client, timeoutMs);
-        try (Response response = requestClient.newCall(requestBuilder.build()).execute()) {
-            String responseBody = response.body() != null ? response.body().string() : "";
-            Map<String, String> responseHeaders = HttpUtils.readHeaders(response);
-            logResponse(method, url, response.code(), responseHeaders, responseBody);
-            return new ResponseData(response.code(), responseBody, responseHeaders);
-        }
-    }
-
-    public void shutdown() {
-        try {
-            client.dispatcher().cancelAll();
-            client.dispatcher().executorService().shutdown();
-            client.connectionPool().evictAll();
-        } catch (Exception e) {
-            Logger.warn("HTTP client shutdown failed: " + e.getMessage());
-        }
+        return requestBuilder.build();
     }
 
     private RequestBody buildRequestBody(String body, Map<String, Object> form, Map<String, Object> formData) {
@@ -0,0 +1,245 @@
+package mindrift.app.music.core.network;
+
+import android.content.Context;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import mindrift.app.music.utils.Logger;
+import mindrift.app.music.utils.SettingsStore;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+public final class HttpEngine {
+    private static final int WARM_UP_HOSTS = 4;
+    private static final long WARM_UP_TIMEOUT_MS = 5000L;
+    private static final long WARM_UP_INTERVAL_MS = 60 * 1000L;
+    private static final int TLS_SESSION_CACHE_SIZE = 64;
+    private static final int TLS_SESSION_TIMEOUT_S = 12 * 60 * 60;
+
+    private static volatile OkHttpClient client;
+    private static volatile File cacheDir;
+    private static volatile File httpCacheDir;
+    private static volatile long httpCacheSizeBytes = NetworkConfig.DEFAULT_HTTP_CACHE_BYTES;
+    private static final HttpCacheRules cacheRules = new HttpCacheRules();
+    private static Cache httpCache;
+    private static CachingDns dns;
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "http-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile long lastWarmUpAt;
+
+    private HttpEngine() {}
+
+    public static void init(Context context) {
+        if (context == null) return;
+        Context appContext = context.getApplicationContext();
+        cacheDir = appContext.getFilesDir();
+        httpCacheDir = new File(appContext.getCacheDir(), "http_cache");
+        httpCacheSizeBytes = SettingsStore.getHttpCacheSizeMb(appContext) * 1024L * 1024L;
+        scheduler.execute(HttpEngine::client);
+    }
+
+    public static OkHttpClient client() {
+        OkHttpClient local = client;
+        if (local == null) {
+            synchronized (HttpEngine.class) {
+                local = client;
+                if (local == null) {
+                    local = build();
+                    client = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    public static int idleConnections() {
+        return client().connectionPool().idleConnectionCount();
+    }
+
+    public static int totalConnections() {
+        return client().connectionPool().connectionCount();
+    }
+
+    public static int cachedHosts() {
+        client();
+        return dns == null ? 0 : dns.size();
+    }
+
+    public static HttpCacheRules getCacheRules() {
+        return cacheRules;
+    }
+
+    public static CacheStats cacheStats() {
+        client();
+        Cache cache = httpCache;
+        if (cache == null) return new CacheStats(0, 0, 0, 0, 0);
+        long size;
+        try {
+            size = cache.size();
+        } catch (IOException e) {
+            size = 0;
+        }
+        return new CacheStats(cache.requestCount(), cache.hitCount(), cache.networkCount(), size, cache.maxSize());
+    }
+
+    public static void clearHttpCache() {
+        client();
+        Cache cache = httpCache;
+        if (cache == null) return;
+        try {
+            cache.evictAll();
+        } catch (IOException e) {
+            Logger.warn("HTTP cache clear failed: " + e.getMessage());
+        }
+    }
+
+    public static void warmUp() {
+        try {
+            scheduler.execute(HttpEngine::warmUpRecent);
+        } catch (Exception e) {
+            Logger.debug("HTTP warm-up rejected: " + e.getMessage());
+        }
+    }
+
+    private static void warmUpRecent() {
+        OkHttpClient local = client();
+        long now = System.currentTimeMillis();
+        if (dns == null || now - lastWarmUpAt < WARM_UP_INTERVAL_MS) return;
+        lastWarmUpAt = now;
+        List<HttpUrl> origins = dns.recentOrigins(WARM_UP_HOSTS);
+        if (origins.isEmpty()) return;
+        Logger.info("HTTP warm-up: " + origins);
+        for (HttpUrl origin : origins) {
+            try {
+                local.dispatcher().executorService().execute(() -> warmUp(local, origin));
+            } catch (Exception e) {
+                Logger.debug("HTTP warm-up rejected: " + origin.host());
+            }
+        }
+    }
+
+    private static void warmUp(OkHttpClient local, HttpUrl origin) {
+        String host = origin.host();
+        int timeout = (int) WARM_UP_TIMEOUT_MS;
+        try {
+            InetAddress address = local.dns().lookup(host).get(0);
+            try (Socket socket = local.socketFactory().createSocket()) {
+                socket.connect(new InetSocketAddress(address, origin.port()), timeout);
+                if (!origin.isHttps()) return;
+                socket.setSoTimeout(timeout);
+                try (SSLSocket ssl = (SSLSocket) local.sslSocketFactory().createSocket(socket, host, origin.port(), false)) {
+                    ssl.startHandshake();
+                }
+            }
+        } catch (Exception e) {
+            Logger.debug("HTTP warm-up failed: " + host + " - " + e.getMessage());
+        }
+    }
+
+    public static void flush() {
+        CachingDns local = dns;
+        if (local != null) {
+            local.flush();
+        }
+        Cache cache = httpCache;
+        if (cache != null) {
+            try {
+                cache.flush();
+            } catch (IOException e) {
+                Logger.warn("HTTP cache flush failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static OkHttpClient build() {
+        File dir = cacheDir;
+        dns = new CachingDns(dir == null ? null : new File(dir, "dns_cache.json"), scheduler);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(NetworkConfig.MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(NetworkConfig.MAX_REQUESTS_PER_HOST);
+        HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message -> Logger.debug("[HTTP] " + message));
+        logging.setLevel(HttpLoggingInterceptor.Level.BASIC);
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(NetworkConfig.MAX_IDLE_CONNECTIONS, NetworkConfig.KEEP_ALIVE_MS, TimeUnit.MILLISECONDS))
+                .dns(dns)
+                .connectTimeout(NetworkConfig.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS)
+                .readTimeout(NetworkConfig.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS)
+                .writeTimeout(NetworkConfig.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS)
+                .addInterceptor(logging)
+                .addNetworkInterceptor(chain -> {
+                    HttpUrl url = chain.request().url();
+                    dns.rememberOrigin(url.host(), url.scheme(), url.port());
+                    return chain.proceed(chain.request());
+                })
+                .addNetworkInterceptor(cacheRules);
+        File cacheLocation = httpCacheDir;
+        if (cacheLocation != null && httpCacheSizeBytes > 0) {
+            httpCache = new Cache(cacheLocation, httpCacheSizeBytes);
+            builder.cache(httpCache);
+        }
+        applySessionCache(builder);
+        return builder.build();
+    }
+
+    private static void applySessionCache(OkHttpClient.Builder builder) {
+        try {
+            TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            factory.init((KeyStore) null);
+            X509TrustManager trustManager = null;
+            for (TrustManager manager : factory.getTrustManagers()) {
+                if (manager instanceof X509TrustManager) {
+                    trustManager = (X509TrustManager) manager;
+                    break;
+                }
+            }
+            if (trustManager == null) return;
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[]{trustManager}, null);
+            SSLSessionContext sessions = sslContext.getClientSessionContext();
+            if (sessions != null) {
+                sessions.setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+                sessions.setSessionTimeout(TLS_SESSION_TIMEOUT_S);
+            }
+            builder.sslSocketFactory(sslContext.getSocketFactory(), trustManager);
+        } catch (Exception e) {
+            Logger.warn("TLS session cache setup failed: " + e.getMessage());
+        }
+    }
+
+    public static class CacheStats {
+        public final int requestCount;
+        public final int hitCount;
+        public final int networkCount;
+        public final long sizeBytes;
+        public final long maxSizeBytes;
+
+        CacheStats(int requestCount, int hitCount, int networkCount, long sizeBytes, long maxSizeBytes) {
+            this.requestCount = requestCount;
+            this.hitCount = hitCount;
+            this.networkCount = networkCount;
+            this.sizeBytes = sizeBytes;
+            this.maxSizeBytes = maxSizeBytes;
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package mindrift.app.music.core.network;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
 import okhttp3.Headers;
-import okhttp3.OkHttpClient;
+import okhttp3.MediaType;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 final class HttpUtils {
     private HttpUtils() {}
@@ -52,13 +60,9 @@ final class HttpUtils {
         }
     }
 
-    static OkHttpClient applyTimeouts(OkHttpClient base, Integer timeoutMs) {
-        if (timeoutMs == null || timeoutMs <= 0) return base;
-        return base.newBuilder()
-                .connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
-                .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
-                .writeTimeout(timeoutMs, TimeUnit.MILLISECONDS)
-                .build();
+    static void applyTimeout(Call call, Integer timeoutMs) {
+        if (timeoutMs == null || timeoutMs <= 0) return;
+        call.timeout().timeout(timeoutMs, TimeUnit.MILLISECONDS);
     }
 
     static Map<String, String> readHeaders(Response response) {
@@ -69,12 +73,48 @@ final class HttpUtils {
         }
         return headers;
     }
-}
-
-
-
-
 
+    static long readMaxBytes(Object value, long fallback) {
+        if (value instanceof Number) {
+            long parsed = ((Number) value).longValue();
+            return parsed > 0 ? parsed : fallback;
+        }
+        if (value == null) return fallback;
+        try {
+            long parsed = Long.parseLong(String.valueOf(value));
+            return parsed > 0 ? parsed : fallback;
+        } catch (Exception e) {
+            return fallback;
+        }
+    }
 
+    static InputStream openBody(ResponseBody body, long maxBytes) throws IOException {
+        if (body == null) return new ByteArrayInputStream(new byte[0]);
+        long length = body.contentLength();
+        if (maxBytes > 0 && length > maxBytes) {
+            throw new IOException("Response exceeds limit of " + maxBytes + " bytes: " + length);
+        }
+        return new BoundedInputStream(body.byteStream(), maxBytes);
+    }
 
+    static byte[] readBytes(ResponseBody body, long maxBytes) throws IOException {
+        if (body == null) return new byte[0];
+        long length = body.contentLength();
+        try (InputStream input = openBody(body, maxBytes)) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(length > 0 ? (int) length : 8192);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
 
+    static String readString(ResponseBody body, long maxBytes) throws IOException {
+        if (body == null) return "";
+        MediaType type = body.contentType();
+        Charset charset = type == null ? StandardCharsets.UTF_8 : type.charset(StandardCharsets.UTF_8);
+        return new String(readBytes(body, maxBytes), charset == null ? StandardCharsets.UTF_8 : charset);
+    }
+}
@@ -5,6 +5,12 @@ public final class NetworkConfig {
 
     public static final int DEFAULT_TIMEOUT = 15000;
     public static final String DEFAULT_USER_AGENT = "lx-music-android/1.0";
+    public static final int MAX_REQUESTS = 64;
+    public static final int MAX_REQUESTS_PER_HOST = 6;
+    public static final int MAX_IDLE_CONNECTIONS = 8;
+    public static final long KEEP_ALIVE_MS = 5 * 60 * 1000L;
+    public static final long DEFAULT_HTTP_CACHE_BYTES = 20 * 1024 * 1024L;
+    public static final long MAX_RESPONSE_BYTES = 16 * 1024 * 1024L;
 }
 
 
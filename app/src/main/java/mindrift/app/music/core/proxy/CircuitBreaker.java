@@ -0,0 +1,160 @@
+package mindrift.app.music.core.proxy;
+
+import android.os.SystemClock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import mindrift.app.music.utils.Logger;
+
+public class CircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    public static final long DEFAULT_OPEN_MS = 30 * 1000L;
+    private static final long MAX_OPEN_MS = 10 * 60 * 1000L;
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private volatile long openMs = DEFAULT_OPEN_MS;
+
+    public void configure(int failureThreshold, long openMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMs = Math.max(1000L, openMs);
+    }
+
+    public boolean isAvailable(String scriptId, String source) {
+        Circuit circuit = circuits.get(key(scriptId, source));
+        if (circuit == null) return true;
+        synchronized (circuit) {
+            long now = SystemClock.elapsedRealtime();
+            switch (circuit.state) {
+                case OPEN:
+                    return now >= circuit.openUntil;
+                case HALF_OPEN:
+                    return !circuit.probing;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    public boolean tryAcquire(String scriptId, String source) {
+        Circuit circuit = circuits.get(key(scriptId, source));
+        if (circuit == null) return true;
+        synchronized (circuit) {
+            long now = SystemClock.elapsedRealtime();
+            if (circuit.state == State.OPEN) {
+                if (now < circuit.openUntil) return false;
+                circuit.state = State.HALF_OPEN;
+                circuit.probing = false;
+                Logger.info("Circuit half-open: " + scriptId + " source=" + source);
+            }
+            if (circuit.state == State.HALF_OPEN) {
+                if (circuit.probing) return false;
+                circuit.probing = true;
+            }
+            return true;
+        }
+    }
+
+    public void recordSuccess(String scriptId, String source) {
+        Circuit circuit = circuits.get(key(scriptId, source));
+        if (circuit == null) return;
+        synchronized (circuit) {
+            if (circuit.state != State.CLOSED) {
+                Logger.info("Circuit closed: " + scriptId + " source=" + source);
+            }
+            circuit.state = State.CLOSED;
+            circuit.probing = false;
+            circuit.consecutiveFailures = 0;
+            circuit.trips = 0;
+        }
+    }
+
+    public void recordFailure(String scriptId, String source) {
+        Circuit circuit = circuits.computeIfAbsent(key(scriptId, source), k -> new Circuit(scriptId, source));
+        synchronized (circuit) {
+            circuit.consecutiveFailures++;
+            circuit.totalFailures++;
+            boolean trip = circuit.state == State.HALF_OPEN || circuit.consecutiveFailures >= failureThreshold;
+            circuit.probing = false;
+            if (!trip) return;
+            circuit.trips++;
+            long duration = Math.min(MAX_OPEN_MS, openMs << Math.min(circuit.trips - 1, 5));
+            circuit.state = State.OPEN;
+            circuit.openUntil = SystemClock.elapsedRealtime() + duration;
+            Logger.warn("Circuit open: " + scriptId + " source=" + source + " for " + duration + "ms");
+        }
+    }
+
+    public void release(String scriptId, String source) {
+        Circuit circuit = circuits.get(key(scriptId, source));
+        if (circuit == null) return;
+        synchronized (circuit) {
+            circuit.probing = false;
+        }
+    }
+
+    public void reset() {
+        circuits.clear();
+    }
+
+    public List<Snapshot> snapshot() {
+        long now = SystemClock.elapsedRealtime();
+        List<Snapshot> result = new ArrayList<>();
+        for (Circuit circuit : circuits.values()) {
+            synchronized (circuit) {
+                State state = circuit.state;
+                if (state == State.OPEN && now >= circuit.openUntil) {
+                    state = State.HALF_OPEN;
+                }
+                long remaining = state == State.OPEN ? circuit.openUntil - now : 0L;
+                result.add(new Snapshot(circuit.scriptId, circuit.source, state, circuit.consecutiveFailures, circuit.totalFailures, remaining));
+            }
+        }
+        return result;
+    }
+
+    private static String key(String scriptId, String source) {
+        return scriptId + "|" + source;
+    }
+
+    public static class Snapshot {
+        public final String scriptId;
+        public final String source;
+        public final State state;
+        public final int consecutiveFailures;
+        public final long totalFailures;
+        public final long remainingOpenMs;
+
+        Snapshot(String scriptId, String source, State state, int consecutiveFailures, long totalFailures, long remainingOpenMs) {
+            this.scriptId = scriptId;
+            this.source = source;
+            this.state = state;
+            this.consecutiveFailures = consecutiveFailures;
+            this.totalFailures = totalFailures;
+            this.remainingOpenMs = remainingOpenMs;
+        }
+    }
+
+    private static class Circuit {
+        final String scriptId;
+        final String source;
+        State state = State.CLOSED;
+        boolean probing;
+        int consecutiveFailures;
+        long totalFailures;
+        int trips;
+        long openUntil;
+
+        Circuit(String scriptId, String source) {
+            this.scriptId = scriptId;
+            this.source = source;
+        }
+    }
+}
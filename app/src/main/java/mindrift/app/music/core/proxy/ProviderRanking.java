@@ -0,0 +1,229 @@
+package mindrift.app.music.core.proxy;
+
+import android.os.SystemClock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ProviderRanking {
+    private static final long[] BUCKET_BOUNDS_MS = new long[]{100, 200, 400, 800, 1600, 3200, 6400};
+    private static final long HALF_LIFE_MS = 10 * 60 * 1000L;
+    private static final double PRIOR_SUCCESS = 1.0;
+    private static final double PRIOR_FAILURE = 1.0;
+    private static final double PRIOR_LATENCY_MS = 1500.0;
+    private static final double MIN_SAMPLES = 3.0;
+    private static final double EXPLORE_RATE = 0.1;
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+    private final long failureCostMs;
+
+    public ProviderRanking(long failureCostMs) {
+        this.failureCostMs = failureCostMs;
+    }
+
+    public void recordSuccess(String scriptId, String source, String action, long latencyMs) {
+        statsOf(scriptId, source, action).record(true, latencyMs, SystemClock.elapsedRealtime());
+    }
+
+    public void recordFailure(String scriptId, String source, String action, long latencyMs) {
+        statsOf(scriptId, source, action).record(false, latencyMs, SystemClock.elapsedRealtime());
+    }
+
+    public List<ScriptHandler> rank(List<ScriptHandler> handlers, String source, String action) {
+        if (handlers == null || handlers.size() < 2) return handlers;
+        long now = SystemClock.elapsedRealtime();
+        List<Scored> scored = new ArrayList<>(handlers.size());
+        for (int i = 0; i < handlers.size(); i++) {
+            ScriptHandler handler = handlers.get(i);
+            Stats entry = stats.get(key(handler.getScriptId(), source, action));
+            scored.add(new Scored(handler, expectedCost(entry, now), i));
+        }
+        Collections.sort(scored, (a, b) -> {
+            int cmp = Double.compare(a.score, b.score);
+            return cmp != 0 ? cmp : Integer.compare(a.order, b.order);
+        });
+        List<ScriptHandler> ranked = new ArrayList<>(scored.size());
+        for (Scored item : scored) {
+            ranked.add(item.handler);
+        }
+        maybeExplore(ranked, source, action, now);
+        return ranked;
+    }
+
+    public List<Snapshot> snapshot() {
+        long now = SystemClock.elapsedRealtime();
+        List<Snapshot> result = new ArrayList<>();
+        for (Stats item : stats.values()) {
+            synchronized (item) {
+                item.decay(now);
+                result.add(new Snapshot(item.scriptId, item.source, item.action, successRate(item),
+                        item.percentile(0.5), item.successes + item.failures, expectedCost(item, now)));
+            }
+        }
+        Collections.sort(result, (a, b) -> Double.compare(a.expectedCostMs, b.expectedCostMs));
+        return result;
+    }
+
+    private void maybeExplore(List<ScriptHandler> ranked, String source, String action, long now) {
+        int candidate;
+        synchronized (random) {
+            if (random.nextDouble() >= EXPLORE_RATE) return;
+            candidate = 1 + random.nextInt(ranked.size() - 1);
+        }
+        for (int i = 1; i < ranked.size(); i++) {
+            if (samplesOf(ranked.get(i).getScriptId(), source, action, now) < MIN_SAMPLES) {
+                candidate = i;
+                break;
+            }
+        }
+        ranked.add(0, ranked.remove(candidate));
+    }
+
+    private double samplesOf(String scriptId, String source, String action, long now) {
+        Stats entry = stats.get(key(scriptId, source, action));
+        if (entry == null) return 0;
+        synchronized (entry) {
+            entry.decay(now);
+            return entry.successes + entry.failures;
+        }
+    }
+
+    private double expectedCost(Stats entry, long now) {
+        double p;
+        double latency;
+        if (entry == null) {
+            p = PRIOR_SUCCESS / (PRIOR_SUCCESS + PRIOR_FAILURE);
+            latency = PRIOR_LATENCY_MS;
+        } else {
+            synchronized (entry) {
+                entry.decay(now);
+                p = successRate(entry);
+                double samples = entry.successWeight();
+                double observed = entry.percentile(0.5);
+                latency = samples <= 0 ? PRIOR_LATENCY_MS : (observed * samples + PRIOR_LATENCY_MS) / (samples + 1.0);
+            }
+        }
+        double cost = p * latency + (1.0 - p) * failureCostMs;
+        return cost / Math.max(p, 0.01);
+    }
+
+    private double successRate(Stats entry) {
+        return (entry.successes + PRIOR_SUCCESS) / (entry.successes + entry.failures + PRIOR_SUCCESS + PRIOR_FAILURE);
+    }
+
+    private Stats statsOf(String scriptId, String source, String action) {
+        return stats.computeIfAbsent(key(scriptId, source, action), k -> new Stats(scriptId, source, action));
+    }
+
+    private static String key(String scriptId, String source, String action) {
+        return scriptId + "|" + source + "|" + action;
+    }
+
+    public static class Snapshot {
+        public final String scriptId;
+        public final String source;
+        public final String action;
+        public final double successRate;
+        public final double p50LatencyMs;
+        public final double samples;
+        public final double expectedCostMs;
+
+        Snapshot(String scriptId, String source, String action, double successRate, double p50LatencyMs,
+                 double samples, double expectedCostMs) {
+            this.scriptId = scriptId;
+            this.source = source;
+            this.action = action;
+            this.successRate = successRate;
+            this.p50LatencyMs = p50LatencyMs;
+            this.samples = samples;
+            this.expectedCostMs = expectedCostMs;
+        }
+    }
+
+    private static class Scored {
+        final ScriptHandler handler;
+        final double score;
+        final int order;
+
+        Scored(ScriptHandler handler, double score, int order) {
+            this.handler = handler;
+            this.score = score;
+            this.order = order;
+        }
+    }
+
+    private static class Stats {
+        final String scriptId;
+        final String source;
+        final String action;
+        final double[] buckets = new double[BUCKET_BOUNDS_MS.length + 1];
+        double successes;
+        double failures;
+        long updatedAt;
+
+        Stats(String scriptId, String source, String action) {
+            this.scriptId = scriptId;
+            this.source = source;
+            this.action = action;
+        }
+
+        synchronized void record(boolean success, long latencyMs, long now) {
+            decay(now);
+            if (success) {
+                successes += 1.0;
+                buckets[bucketOf(latencyMs)] += 1.0;
+            } else {
+                failures += 1.0;
+            }
+        }
+
+        void decay(long now) {
+            if (updatedAt == 0) {
+                updatedAt = now;
+                return;
+            }
+            long elapsed = now - updatedAt;
+            if (elapsed <= 0) return;
+            double factor = Math.pow(0.5, (double) elapsed / HALF_LIFE_MS);
+            successes *= factor;
+            failures *= factor;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] *= factor;
+            }
+            updatedAt = now;
+        }
+
+        double successWeight() {
+            double total = 0;
+            for (double bucket : buckets) {
+                total += bucket;
+            }
+            return total;
+        }
+
+        double percentile(double fraction) {
+            double total = successWeight();
+            if (total <= 0) return PRIOR_LATENCY_MS;
+            double target = total * fraction;
+            double seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    return i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : BUCKET_BOUNDS_MS[BUCKET_BOUNDS_MS.length - 1] * 2;
+                }
+            }
+            return BUCKET_BOUNDS_MS[BUCKET_BOUNDS_MS.length - 1] * 2;
+        }
+
+        private static int bucketOf(long latencyMs) {
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                if (latencyMs <= BUCKET_BOUNDS_MS[i]) return i;
+            }
+            return BUCKET_BOUNDS_MS.length;
+        }
+    }
+}
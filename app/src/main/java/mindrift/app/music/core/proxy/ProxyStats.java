@@ -0,0 +1,24 @@
+package mindrift.app.music.core.proxy;
+
+import java.util.Map;
+
+public class ProxyStats {
+    public final int queueDepth;
+    public final int activeWorkers;
+    public final long completedTasks;
+    public final long avgQueueWaitMs;
+    public final long maxQueueWaitMs;
+    public final long avgPermitWaitMs;
+    public final Map<String, Integer> scriptPermitsInUse;
+
+    ProxyStats(int queueDepth, int activeWorkers, long completedTasks, long avgQueueWaitMs, long maxQueueWaitMs,
+               long avgPermitWaitMs, Map<String, Integer> scriptPermitsInUse) {
+        this.queueDepth = queueDepth;
+        this.activeWorkers = activeWorkers;
+        this.completedTasks = completedTasks;
+        this.avgQueueWaitMs = avgQueueWaitMs;
+        this.maxQueueWaitMs = maxQueueWaitMs;
+        this.avgPermitWaitMs = avgPermitWaitMs;
+        this.scriptPermitsInUse = scriptPermitsInUse;
+    }
+}
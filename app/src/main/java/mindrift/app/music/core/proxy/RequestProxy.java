@@ -1,13 +1,28 @@
 package mindrift.app.music.core.proxy;
 
 import android.content.Context;
+import android.os.SystemClock;
 import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import mindrift.app.music.core.cache.CacheEntry;
 import mindrift.app.music.core.cache.CacheManager;
 import mindrift.app.music.core.script.ScriptManager;
@@ -18,21 +33,49 @@ import mindrift.app.music.utils.SettingsStore;
 
 public class RequestProxy {
     public interface ResolveCallback {
-        void onSuccess(String responseJson);
+        void onSuccess(byte[] response);
         void onFailure(Exception e);
     }
 
     private final ScriptManager scriptManager;
     private final CacheManager cacheManager;
     private final Context appContext;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ThreadPoolExecutor executor;
+    private final ScriptPermits scriptPermits;
+    private final AtomicLong queueWaitTotalMs = new AtomicLong();
+    private final AtomicLong queueWaitMaxMs = new AtomicLong();
+    private final AtomicLong queueWaitSamples = new AtomicLong();
+    private final AtomicLong permitWaitTotalMs = new AtomicLong();
+    private final AtomicLong permitWaitSamples = new AtomicLong();
+    private final ThreadPoolExecutor raceExecutor;
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
     private final Gson gson = new Gson();
-    private static final long REQUEST_TIMEOUT_MS = 4000;
+    public static final long REQUEST_TIMEOUT_MS = 4000;
+    private static final int WORKER_COUNT = 4;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int RACE_WORKER_COUNT = 8;
+    private static final int RACE_QUEUE_CAPACITY = 16;
+    private static final int PERMITS_PER_SCRIPT = 2;
+    private static final long SLOW_QUEUE_WAIT_MS = 1000;
 
     public RequestProxy(Context context, ScriptManager scriptManager, CacheManager cacheManager) {
         this.appContext = context == null ? null : context.getApplicationContext();
         this.scriptManager = scriptManager;
         this.cacheManager = cacheManager;
+        this.scriptPermits = new ScriptPermits(PERMITS_PER_SCRIPT * scriptManager.getContextPoolSize());
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+                r -> new Thread(r, "resolve-worker-" + threadIndex.incrementAndGet()));
+        this.executor.allowCoreThreadTimeOut(true);
+        AtomicInteger raceIndex = new AtomicInteger();
+        this.raceExecutor = new ThreadPoolExecutor(RACE_WORKER_COUNT, RACE_WORKER_COUNT, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(RACE_QUEUE_CAPACITY),
+                r -> new Thread(r, "resolve-race-" + raceIndex.incrementAndGet()));
+        this.raceExecutor.allowCoreThreadTimeOut(true);
+        scriptManager.getCircuitBreaker().configure(
+                SettingsStore.getBreakerFailureThreshold(appContext),
+                SettingsStore.getBreakerOpenMs(appContext));
     }
 
     public void resolve(ResolveRequest request, ResolveCallback callback) {
@@ -40,17 +83,67 @@ public class RequestProxy {
             callback.onFailure(new IllegalStateException("RequestProxy is shutdown"));
             return;
         }
-        executor.execute(() -> {
-            try {
-                String response = resolveSync(request);
-                callback.onSuccess(response);
-            } catch (Exception e) {
-                callback.onFailure(e);
-            }
-        });
+        CompletableFuture<byte[]> existing = findInFlight(request);
+        if (existing != null) {
+            Logger.info("Join in-flight resolve without worker");
+            existing.whenComplete((response, error) -> {
+                if (error == null) {
+                    callback.onSuccess(response);
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    callback.onFailure(cause instanceof Exception ? (Exception) cause : new Exception(String.valueOf(cause)));
+                }
+            });
+            return;
+        }
+        long enqueuedAt = SystemClock.elapsedRealtime();
+        try {
+            executor.execute(() -> {
+                recordQueueWait(SystemClock.elapsedRealtime() - enqueuedAt);
+                try {
+                    byte[] response = resolveBytes(request);
+                    callback.onSuccess(response);
+                } catch (Exception e) {
+                    callback.onFailure(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Logger.warn("Resolve rejected: queue full (" + executor.getQueue().size() + ")");
+            callback.onFailure(new Exception("RequestProxy busy"));
+        }
+    }
+
+    public ProxyStats getStats() {
+        long queueSamples = queueWaitSamples.get();
+        long permitSamples = permitWaitSamples.get();
+        return new ProxyStats(
+                executor.getQueue().size(),
+                executor.getActiveCount(),
+                executor.getCompletedTaskCount(),
+                queueSamples == 0 ? 0 : queueWaitTotalMs.get() / queueSamples,
+                queueWaitMaxMs.get(),
+                permitSamples == 0 ? 0 : permitWaitTotalMs.get() / permitSamples,
+                scriptPermits.snapshotInUse()
+        );
+    }
+
+    private void recordQueueWait(long waitMs) {
+        queueWaitTotalMs.addAndGet(waitMs);
+        queueWaitSamples.incrementAndGet();
+        long max;
+        do {
+            max = queueWaitMaxMs.get();
+        } while (waitMs > max && !queueWaitMaxMs.compareAndSet(max, waitMs));
+        if (waitMs >= SLOW_QUEUE_WAIT_MS) {
+            Logger.warn("Resolve queued " + waitMs + "ms, depth=" + executor.getQueue().size());
+        }
     }
 
     public String resolveSync(ResolveRequest request) throws Exception {
+        return new String(resolveBytes(request), StandardCharsets.UTF_8);
+    }
+
+    public byte[] resolveBytes(ResolveRequest request) throws Exception {
         if (request == null) throw new Exception("Request is null");
         String source = PlatformUtils.normalize(request.getSource());
         String action = request.getAction();
@@ -66,26 +159,51 @@ public class RequestProxy {
         if (action == null || action.isEmpty()) action = "musicUrl";
         if (quality == null || quality.isEmpty()) quality = "128k";
 
-        String cacheKey = source + ":" + songId + ":" + action + ":" + quality;
+        String cacheKey = cacheKeyOf(source, songId, action, quality);
         Logger.info("Resolve " + action + " @ " + source + " - " + songId);
 
         if (!nocache) {
+            byte[] wire = cacheManager.getWire(cacheKey);
+            if (wire != null) {
+                Logger.info("Cache hit: " + cacheKey + " (wire)");
+                return wire;
+            }
+            long wireVersion = cacheManager.wireVersion();
             CacheEntry cached = cacheManager.get(cacheKey);
             if (cached != null) {
                 Logger.info("Cache hit: " + cacheKey + " via " + cached.getProvider());
-                return buildResponse(request, action, quality, songId, cached.getData(), cached.getProvider());
+                wire = buildResponse(request, action, quality, songId, cached.getData(), cached.getProvider()).getBytes(StandardCharsets.UTF_8);
+                cacheManager.putWire(cacheKey, wire, cached.getExpireAt(), wireVersion);
+                return wire;
             }
         } else {
             Logger.info("Cache skipped (nocache=true)");
         }
 
-        String forcedScriptId = SettingsStore.getForcedScriptId(appContext);
         boolean forcePolling = SettingsStore.isForcePolling(appContext);
-        String targetScriptId = request.getTargetScriptId();
-        if (forcedScriptId != null && !forcedScriptId.trim().isEmpty()) {
-            targetScriptId = forcedScriptId.trim();
+        String targetScriptId = targetScriptIdOf(request);
+
+        String flightKey = flightKeyOf(cacheKey, targetScriptId);
+        CompletableFuture<byte[]> pending = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(flightKey, pending);
+        if (existing != null) {
+            Logger.info("Join in-flight resolve: " + flightKey);
+            long joinTimeoutMs = REQUEST_TIMEOUT_MS * Math.max(1, scriptManager.countHandlers(source, action));
+            return awaitInFlight(existing, joinTimeoutMs);
+        }
+        try {
+            byte[] response = resolveWithProviders(request, source, cacheKey, action, quality, songId, targetScriptId, forcePolling).getBytes(StandardCharsets.UTF_8);
+            pending.complete(response);
+            return response;
+        } catch (Exception e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, pending);
         }
+    }
 
+    private String resolveWithProviders(ResolveRequest request, String source, String cacheKey, String action, String quality, String songId, String targetScriptId, boolean forcePolling) throws Exception {
         if (targetScriptId != null && !targetScriptId.isEmpty() && !forcePolling) {
             ScriptHandler handler = scriptManager.getHandlerById(source, targetScriptId, action);
             if (handler == null) {
@@ -96,12 +214,21 @@ public class RequestProxy {
 
         List<ScriptHandler> handlers = scriptManager.getOrderedHandlers(source, action);
         if (handlers.isEmpty()) {
+            if (scriptManager.hasHandlers(source, action)) {
+                throw new Exception("All providers unavailable (circuit open): " + source);
+            }
             throw new Exception("No provider found for source: " + source);
         }
         if (targetScriptId != null && !targetScriptId.isEmpty()) {
             handlers = prioritizeHandlers(handlers, targetScriptId);
         }
+        if (handlers.size() > 1 && SettingsStore.isHedgedResolve(appContext)) {
+            return resolveHedged(request, handlers, cacheKey, action, quality, songId);
+        }
+        return resolveSequential(request, handlers, cacheKey, action, quality, songId);
+    }
 
+    private String resolveSequential(ResolveRequest request, List<ScriptHandler> handlers, String cacheKey, String action, String quality, String songId) throws Exception {
         Exception lastError = null;
         for (ScriptHandler handler : handlers) {
             try {
@@ -115,6 +242,122 @@ public class RequestProxy {
         throw new Exception(lastError == null ? "All providers failed" : lastError.getMessage());
     }
 
+    private String resolveHedged(ResolveRequest request, List<ScriptHandler> handlers, String cacheKey, String action, String quality, String songId) throws Exception {
+        long delayMs = SettingsStore.getHedgeDelayMs(appContext);
+        int fanout = Math.min(SettingsStore.getHedgeFanout(appContext), handlers.size());
+        ExecutorCompletionService<String> completion = new ExecutorCompletionService<>(raceExecutor);
+        Map<Future<String>, RaceAttempt> attempts = new HashMap<>();
+        RaceAttempt winner = null;
+        Exception lastError = null;
+        int next = 0;
+        int running = 0;
+        try {
+            while (true) {
+                while (next < handlers.size() && running < fanout && (running == 0 || delayMs <= 0)) {
+                    if (!launchAttempt(completion, attempts, request, handlers.get(next), cacheKey, action, quality, songId)) {
+                        if (running == 0) {
+                            return resolveSequential(request, handlers.subList(next, handlers.size()), cacheKey, action, quality, songId);
+                        }
+                        fanout = running;
+                        break;
+                    }
+                    next++;
+                    running++;
+                }
+                if (running == 0) break;
+                boolean canHedge = next < handlers.size() && running < fanout;
+                Future<String> done = canHedge
+                        ? completion.poll(delayMs, TimeUnit.MILLISECONDS)
+                        : completion.take();
+                if (done == null) {
+                    Logger.info("Hedge: start next provider after " + delayMs + "ms");
+                    if (launchAttempt(completion, attempts, request, handlers.get(next), cacheKey, action, quality, songId)) {
+                        next++;
+                        running++;
+                    } else {
+                        fanout = running;
+                    }
+                    continue;
+                }
+                running--;
+                RaceAttempt attempt = attempts.get(done);
+                try {
+                    String response = done.get();
+                    winner = attempt;
+                    Logger.info("Hedge winner: " + (attempt == null ? "?" : attempt.handler.getScriptId()));
+                    return response;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    lastError = cause instanceof Exception ? (Exception) cause : new Exception(String.valueOf(cause));
+                    Logger.warn("Provider failed: " + (attempt == null ? "?" : attempt.handler.getScriptId()) + " - " + lastError.getMessage());
+                }
+            }
+        } finally {
+            for (RaceAttempt attempt : attempts.values()) {
+                if (attempt == winner || attempt.future.isDone()) continue;
+                attempt.cancelled.set(true);
+                scriptManager.cancelRequest(attempt.handler.getScriptId(), attempt.requestKey);
+                attempt.future.cancel(true);
+            }
+        }
+        throw new Exception(lastError == null ? "All providers failed" : lastError.getMessage());
+    }
+
+    private boolean launchAttempt(ExecutorCompletionService<String> completion, Map<Future<String>, RaceAttempt> attempts,
+                                  ResolveRequest request, ScriptHandler handler, String cacheKey, String action, String quality, String songId) {
+        String requestKey = scriptManager.createRequestKey();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Future<String> future;
+        try {
+            future = completion.submit(() -> executeWithHandler(request, handler, cacheKey, action, quality, songId, requestKey, cancelled));
+        } catch (RejectedExecutionException e) {
+            Logger.warn("Hedge skipped, race pool full: " + handler.getScriptId());
+            return false;
+        }
+        attempts.put(future, new RaceAttempt(handler, requestKey, future, cancelled));
+        return true;
+    }
+
+    private CompletableFuture<byte[]> findInFlight(ResolveRequest request) {
+        if (request == null || inFlight.isEmpty()) return null;
+        String source = PlatformUtils.normalize(request.getSource());
+        String songId = request.resolveSongId();
+        if (source == null || source.isEmpty() || songId == null || songId.isEmpty()) return null;
+        String action = request.getAction();
+        String quality = request.getQuality();
+        if (action == null || action.isEmpty()) action = "musicUrl";
+        if (quality == null || quality.isEmpty()) quality = "128k";
+        return inFlight.get(flightKeyOf(cacheKeyOf(source, songId, action, quality), targetScriptIdOf(request)));
+    }
+
+    private String targetScriptIdOf(ResolveRequest request) {
+        String forcedScriptId = SettingsStore.getForcedScriptId(appContext);
+        if (forcedScriptId != null && !forcedScriptId.trim().isEmpty()) {
+            return forcedScriptId.trim();
+        }
+        return request.getTargetScriptId();
+    }
+
+    private static String cacheKeyOf(String source, String songId, String action, String quality) {
+        return source + ":" + songId + ":" + action + ":" + quality;
+    }
+
+    private static String flightKeyOf(String cacheKey, String targetScriptId) {
+        return targetScriptId == null || targetScriptId.isEmpty() ? cacheKey : cacheKey + "@" + targetScriptId;
+    }
+
+    private byte[] awaitInFlight(CompletableFuture<byte[]> future, long timeoutMs) throws Exception {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new Exception("Resolve timeout waiting for in-flight request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw new Exception(cause == null ? "Resolve failed" : cause.getMessage());
+        }
+    }
+
     private List<ScriptHandler> prioritizeHandlers(List<ScriptHandler> handlers, String targetScriptId) {
         if (handlers == null || handlers.isEmpty() || targetScriptId == null || targetScriptId.isEmpty()) {
             return handlers;
@@ -145,7 +388,7 @@ public class RequestProxy {
             payload.put("url", data);
         }
         Map<String, Object> info = new HashMap<>();
-        info.put("platform", request == null ? null : request.getSource());
+        info.put("platform", request == null ? null : PlatformUtils.normalize(request.getSource()));
         info.put("action", action);
         info.put("quality", quality);
         info.put("songId", songId);
@@ -155,26 +398,76 @@ public class RequestProxy {
     }
 
     private String executeWithHandler(ResolveRequest request, ScriptHandler handler, String cacheKey, String action, String quality, String songId) throws Exception {
+        return executeWithHandler(request, handler, cacheKey, action, quality, songId, scriptManager.createRequestKey(), null);
+    }
+
+    private String executeWithHandler(ResolveRequest request, ScriptHandler handler, String cacheKey, String action, String quality, String songId, String requestKey, AtomicBoolean cancelled) throws Exception {
+        String scriptId = handler.getScriptId();
+        long permitStart = SystemClock.elapsedRealtime();
+        if (!scriptPermits.acquire(scriptId, REQUEST_TIMEOUT_MS)) {
+            throw new Exception("Script busy: " + scriptId);
+        }
+        permitWaitTotalMs.addAndGet(SystemClock.elapsedRealtime() - permitStart);
+        permitWaitSamples.incrementAndGet();
+        String source = PlatformUtils.normalize(request.getSource());
+        ProviderRanking ranking = scriptManager.getProviderRanking();
+        CircuitBreaker breaker = scriptManager.getCircuitBreaker();
+        if (!breaker.tryAcquire(scriptId, source)) {
+            scriptPermits.release(scriptId);
+            throw new Exception("Circuit open: " + scriptId);
+        }
+        long dispatchStart = SystemClock.elapsedRealtime();
+        try {
+            String response = dispatchToHandler(request, handler, cacheKey, action, quality, songId, requestKey);
+            ranking.recordSuccess(scriptId, source, action, SystemClock.elapsedRealtime() - dispatchStart);
+            breaker.recordSuccess(scriptId, source);
+            return response;
+        } catch (Exception e) {
+            if (cancelled != null && cancelled.get()) {
+                breaker.release(scriptId, source);
+            } else if (e instanceof RejectedException) {
+                ranking.recordFailure(scriptId, source, action, SystemClock.elapsedRealtime() - dispatchStart);
+                breaker.release(scriptId, source);
+            } else {
+                ranking.recordFailure(scriptId, source, action, SystemClock.elapsedRealtime() - dispatchStart);
+                breaker.recordFailure(scriptId, source);
+            }
+            throw e;
+        } finally {
+            scriptPermits.release(scriptId);
+        }
+    }
+
+    private String dispatchToHandler(ResolveRequest request, ScriptHandler handler, String cacheKey, String action, String quality, String songId, String requestKey) throws Exception {
         String targetQuality = resolveQuality(handler, quality);
         Map<String, Object> requestPayload = request.buildScriptRequest(targetQuality, action);
         Logger.info("Dispatch to handler: " + handler.getScriptId() + " action=" + action + " quality=" + targetQuality);
-        String responseJson = scriptManager.dispatchRequest(handler.getScriptId(), gson.toJson(requestPayload), REQUEST_TIMEOUT_MS);
-        Logger.info("Handler response: " + handler.getScriptId() + " bytes=" + (responseJson == null ? 0 : responseJson.length()));
-        Map<String, Object> response = gson.fromJson(responseJson, Map.class);
-        if (response != null && response.get("error") != null) {
-            throw new Exception(String.valueOf(response.get("error")));
+        ScriptManager.DispatchResult result = scriptManager.dispatch(handler.getScriptId(), requestPayload, REQUEST_TIMEOUT_MS, requestKey);
+        Logger.info("Handler response: " + handler.getScriptId() + " success=" + result.success);
+        if (!result.success) {
+            throw result.rejected ? new RejectedException(result.errorMessage) : new Exception(result.errorMessage);
         }
 
-        Object data = response;
-        if (response != null && response.containsKey("url")) {
-            data = response.get("url");
+        Object data = result.data;
+        if (data instanceof Map && ((Map<?, ?>) data).containsKey("url")) {
+            data = ((Map<?, ?>) data).get("url");
         }
-        cacheManager.put(cacheKey, data, handler.getScriptId());
-        return buildResponse(request, action, targetQuality, songId, data, handler.getScriptId());
+        String response = buildResponse(request, action, targetQuality, songId, data, handler.getScriptId());
+        long ttl = cacheManager.getPolicy().resolveTtl(PlatformUtils.normalize(request.getSource()), action, targetQuality, handler.getScriptId(), data, SettingsStore.isUrlExpiry(appContext), System.currentTimeMillis());
+        if (ttl > 0) {
+            String hitResponse = Objects.equals(targetQuality, quality)
+                    ? response
+                    : buildResponse(request, action, quality, songId, data, handler.getScriptId());
+            cacheManager.put(cacheKey, data, handler.getScriptId(), ttl, hitResponse.getBytes(StandardCharsets.UTF_8));
+        } else {
+            Logger.info("Cache skipped by policy: " + cacheKey);
+        }
+        return response;
     }
 
     public void shutdown() {
         executor.shutdownNow();
+        raceExecutor.shutdownNow();
     }
 
     private String resolveQuality(ScriptHandler handler, String requested) {
@@ -200,6 +493,26 @@ public class RequestProxy {
         }
         return null;
     }
+
+    private static class RaceAttempt {
+        final ScriptHandler handler;
+        final String requestKey;
+        final Future<String> future;
+        final AtomicBoolean cancelled;
+
+        RaceAttempt(ScriptHandler handler, String requestKey, Future<String> future, AtomicBoolean cancelled) {
+            this.handler = handler;
+            this.requestKey = requestKey;
+            this.future = future;
+            this.cancelled = cancelled;
+        }
+    }
+
+    private static class RejectedException extends Exception {
+        RejectedException(String message) {
+            super(message);
+        }
+    }
 }
 
 
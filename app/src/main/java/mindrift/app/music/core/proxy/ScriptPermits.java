@@ -0,0 +1,40 @@
+package mindrift.app.music.core.proxy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+class ScriptPermits {
+    private final int permitsPerScript;
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    ScriptPermits(int permitsPerScript) {
+        this.permitsPerScript = Math.max(1, permitsPerScript);
+    }
+
+    boolean acquire(String scriptId, long timeoutMs) throws InterruptedException {
+        return semaphoreOf(scriptId).tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    void release(String scriptId) {
+        semaphoreOf(scriptId).release();
+    }
+
+    Map<String, Integer> snapshotInUse() {
+        Map<String, Integer> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, Semaphore> entry : permits.entrySet()) {
+            int inUse = permitsPerScript - entry.getValue().availablePermits();
+            if (inUse > 0) {
+                snapshot.put(entry.getKey(), inUse);
+            }
+        }
+        return snapshot;
+    }
+
+    private Semaphore semaphoreOf(String scriptId) {
+        String key = scriptId == null ? "" : scriptId;
+        return permits.computeIfAbsent(key, k -> new Semaphore(permitsPerScript, true));
+    }
+}
@@ -0,0 +1,119 @@
+package mindrift.app.music.core.script;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import mindrift.app.music.utils.Logger;
+
+public class ScriptBytecodeCache {
+    private static final String ENGINE_TAG = "quickjs-2.4.0";
+    private static final String SUFFIX = ".qjsc";
+    private static final int MAX_FILES = 64;
+
+    private final File cacheDir;
+
+    public ScriptBytecodeCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            Logger.warn("Failed to create bytecode cache directory: " + cacheDir.getAbsolutePath());
+        }
+    }
+
+    public String keyOf(String fileName, String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(ENGINE_TAG.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update((fileName == null ? "" : fileName).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update((source == null ? "" : source).getBytes(StandardCharsets.UTF_8));
+            byte[] hash = digest.digest();
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public synchronized byte[] load(String key) {
+        if (key == null) return null;
+        File file = new File(cacheDir, key + SUFFIX);
+        if (!file.exists() || file.length() == 0) return null;
+        try (FileInputStream input = new FileInputStream(file)) {
+            byte[] data = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < data.length) {
+                int read = input.read(data, offset, data.length - offset);
+                if (read < 0) break;
+                offset += read;
+            }
+            if (offset != data.length) {
+                invalidate(key);
+                return null;
+            }
+            if (!file.setLastModified(System.currentTimeMillis())) {
+                Logger.warn("Bytecode cache touch failed: " + key);
+            }
+            return data;
+        } catch (Exception e) {
+            Logger.warn("Bytecode cache read failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public synchronized void store(String key, byte[] bytecode) {
+        if (key == null || bytecode == null || bytecode.length == 0) return;
+        File target = new File(cacheDir, key + SUFFIX);
+        File temp = new File(cacheDir, key + SUFFIX + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(temp, false)) {
+            output.write(bytecode);
+        } catch (Exception e) {
+            Logger.warn("Bytecode cache write failed: " + e.getMessage());
+            if (temp.exists() && !temp.delete()) {
+                Logger.warn("Bytecode cache temp delete failed");
+            }
+            return;
+        }
+        if (!temp.renameTo(target)) {
+            Logger.warn("Bytecode cache rename failed: " + key);
+            return;
+        }
+        trim();
+    }
+
+    public synchronized void invalidate(String key) {
+        if (key == null) return;
+        File file = new File(cacheDir, key + SUFFIX);
+        if (file.exists() && !file.delete()) {
+            Logger.warn("Bytecode cache delete failed: " + key);
+        }
+    }
+
+    public synchronized void clear() {
+        File[] files = cacheDir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (!file.delete()) {
+                Logger.warn("Bytecode cache delete failed: " + file.getName());
+            }
+        }
+    }
+
+    private void trim() {
+        File[] files = cacheDir.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null || files.length <= MAX_FILES) return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - MAX_FILES; i++) {
+            if (!files[i].delete()) {
+                Logger.warn("Bytecode cache trim failed: " + files[i].getName());
+            }
+        }
+    }
+}
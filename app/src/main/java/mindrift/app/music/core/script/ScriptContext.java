@@ -1,26 +1,58 @@
 package mindrift.app.music.core.script;
 
+import android.os.SystemClock;
 import com.whl.quickjs.android.QuickJSLoader;
+import com.whl.quickjs.wrapper.JSFunction;
+import com.whl.quickjs.wrapper.JSObject;
 import com.whl.quickjs.wrapper.QuickJSContext;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import mindrift.app.music.core.engine.LxNativeImpl;
 import mindrift.app.music.utils.Logger;
 
 public class ScriptContext {
+    private static final long HEAP_CHECK_INTERVAL_MS = 30 * 1000L;
+    private static final double HEAP_BUDGET_RATIO = 0.85;
+
+    interface MemoryListener {
+        void onMemoryBudgetExceeded(ScriptContext context, long usedBytes);
+    }
+
     private final String scriptId;
     private final String nativeKey;
-    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor executor;
+    private final ScriptTimerQueue timerQueue;
     private final CountDownLatch initLatch;
+    private final ScriptBytecodeCache bytecodeCache;
+    private final ScriptLimits limits;
     private QuickJSContext jsContext;
+    private JSFunction nativeEntry;
     private LxNativeImpl nativeImpl;
-    private final ConcurrentHashMap<String, ArrayBlockingQueue<String>> asyncResults = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ArrayBlockingQueue<Object>> asyncResults = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingDispatches = new AtomicInteger();
+    private final AtomicInteger dispatchCount = new AtomicInteger();
+    private volatile long lastActiveAt = SystemClock.elapsedRealtime();
+    private volatile MemoryListener memoryListener;
+    private volatile long heapUsedBytes = -1;
+    private volatile boolean outOfMemory;
+    private volatile boolean recycleRequested;
+    private int lastHeapCheckCount = -1;
+    private ScheduledFuture<?> heapMonitor;
+    private File heapDumpFile;
 
     // ????????????
     private volatile Object scriptInfo;
@@ -28,11 +60,25 @@ public class ScriptContext {
     private volatile String lastRequestAction;
     private volatile String lastRequestQuality;
     private volatile String lastRequestSongId;
+    private String activeRequestKey;
 
     public ScriptContext(String scriptId, String nativeKey) {
+        this(scriptId, nativeKey, null);
+    }
+
+    public ScriptContext(String scriptId, String nativeKey, ScriptBytecodeCache bytecodeCache) {
+        this(scriptId, nativeKey, bytecodeCache, ScriptLimits.DEFAULT);
+    }
+
+    public ScriptContext(String scriptId, String nativeKey, ScriptBytecodeCache bytecodeCache, ScriptLimits limits) {
         this.scriptId = scriptId;
         this.nativeKey = nativeKey;
-        this.executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "v8-script-" + scriptId));
+        this.bytecodeCache = bytecodeCache;
+        this.limits = limits == null ? ScriptLimits.DEFAULT : limits;
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "v8-script-" + scriptId));
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.timerQueue = new ScriptTimerQueue(executor, this::fireTimers);
         this.initLatch = new CountDownLatch(1);
     }
 
@@ -50,23 +96,30 @@ public class ScriptContext {
             try {
                 QuickJSLoader.init();
                 if (jsContext != null) {
+                    releaseNativeEntry();
                     jsContext.destroy();
                 }
                 jsContext = QuickJSContext.create();
+                applyLimits(jsContext);
                 createEnvObj(jsContext, nativeImpl);
                 if (preloadScript != null && !preloadScript.isEmpty()) {
-                    jsContext.evaluate(preloadScript);
+                    evaluateCached(preloadScript, "user-api-preload.js");
                 }
                 callSetup(meta, scriptContent);
-                jsContext.evaluate(scriptContent + "\n;void 0;");
+                evaluateCached(scriptContent + "\n;void 0;", scriptId);
             } finally {
                 initLatch.countDown();
             }
         });
         future.get();
+        startHeapMonitor();
     }
 
     public void evaluateAsync(String script) {
+        evaluateAsync(script, null);
+    }
+
+    public void evaluateAsync(String script, String requestKey) {
         if (executor.isShutdown()) {
             Logger.warn("Script context closed, ignore async eval: " + scriptId);
             return;
@@ -74,12 +127,16 @@ public class ScriptContext {
         try {
             executor.submit(() -> {
                 awaitInit();
+                activeRequestKey = requestKey;
                 try {
                     if (jsContext != null) {
                         jsContext.evaluate(script);
                     }
                 } catch (Exception e) {
                     Logger.error("Script execution error: " + e.getMessage(), e);
+                    checkOutOfMemory(e);
+                } finally {
+                    activeRequestKey = null;
                 }
             });
         } catch (RejectedExecutionException e) {
@@ -87,6 +144,88 @@ public class ScriptContext {
         }
     }
 
+    public void callNativeAsync(String action, Object data, String requestKey) {
+        callNativeAsync(action, data, null, requestKey);
+    }
+
+    public void callNativeAsync(String action, Object data, Object body, String requestKey) {
+        if (executor.isShutdown()) {
+            Logger.warn("Script context closed, ignore native call: " + scriptId);
+            return;
+        }
+        try {
+            executor.submit(() -> {
+                awaitInit();
+                activeRequestKey = requestKey;
+                try {
+                    JSFunction entry = resolveNativeEntry();
+                    if (entry != null) {
+                        release(body == null
+                                ? entry.call(nativeKey, action, data)
+                                : entry.call(nativeKey, action, data, body));
+                    }
+                } catch (Exception e) {
+                    Logger.error("Script native call error: " + e.getMessage(), e);
+                    checkOutOfMemory(e);
+                } finally {
+                    activeRequestKey = null;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Logger.warn("Script context rejected native call: " + scriptId);
+        }
+    }
+
+    public void callFunctionAsync(String name, Object... args) {
+        if (executor.isShutdown()) return;
+        try {
+            executor.submit(() -> {
+                awaitInit();
+                if (jsContext == null) return;
+                JSFunction function = null;
+                try {
+                    Object value = jsContext.getGlobalObject().getProperty(name);
+                    if (!(value instanceof JSFunction)) {
+                        release(value);
+                        return;
+                    }
+                    function = (JSFunction) value;
+                    release(function.call(args));
+                } catch (Exception e) {
+                    Logger.error("Script function call error: " + name + " - " + e.getMessage(), e);
+                    checkOutOfMemory(e);
+                } finally {
+                    if (function != null) {
+                        function.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Logger.warn("Script context rejected function call: " + scriptId);
+        }
+    }
+
+    public void scheduleTimer(long id, long delayMs) {
+        if (executor.isShutdown()) return;
+        timerQueue.schedule(id, delayMs);
+    }
+
+    public ScriptLimits getLimits() {
+        return limits;
+    }
+
+    public long getHeapUsedBytes() {
+        return heapUsedBytes;
+    }
+
+    void setMemoryListener(MemoryListener listener) {
+        this.memoryListener = listener;
+    }
+
+    public int getPendingTimers() {
+        return timerQueue.size();
+    }
+
     public <T> T evaluate(String script, Class<T> type) throws Exception {
         if (executor.isShutdown()) {
             throw new Exception("Script context closed");
@@ -110,6 +249,10 @@ public class ScriptContext {
         this.scriptInfo = scriptInfo;
     }
 
+    public String getActiveRequestKey() {
+        return activeRequestKey;
+    }
+
     public void setLastRequestMeta(String source, String action, String quality) {
         this.lastRequestSource = source;
         this.lastRequestAction = action;
@@ -137,6 +280,8 @@ public class ScriptContext {
     }
 
     public void close() {
+        timerQueue.close();
+        stopHeapMonitor();
         if (nativeImpl != null) {
             nativeImpl.shutdown();
             nativeImpl = null;
@@ -146,46 +291,87 @@ public class ScriptContext {
                 executor.submit(() -> {
                     awaitInit();
                     if (jsContext != null) {
+                        releaseNativeEntry();
                         jsContext.destroy();
                         jsContext = null;
                     }
+                    if (heapDumpFile != null && heapDumpFile.exists() && !heapDumpFile.delete()) {
+                        Logger.warn("Heap dump cleanup failed: " + scriptId);
+                    }
                 });
             } catch (RejectedExecutionException e) {
                 Logger.warn("Script context rejected close task: " + scriptId);
             }
         }
+        Map<String, Object> closedPayload = new HashMap<>();
+        closedPayload.put("status", false);
+        closedPayload.put("crashed", true);
+        closedPayload.put("errorMessage", "Script context closed");
+        for (ArrayBlockingQueue<Object> queue : asyncResults.values()) {
+            queue.offer(closedPayload);
+        }
         asyncResults.clear();
         executor.shutdown();
     }
 
-    public void completeAsyncResult(String asyncId, String payloadJson) {
+    public void completeAsyncResult(String asyncId, Object payload) {
         if (asyncId == null) return;
-        ArrayBlockingQueue<String> queue = asyncResults.get(asyncId);
+        ArrayBlockingQueue<Object> queue = asyncResults.get(asyncId);
         if (queue == null) {
             Logger.warn("Async result ignored (not pending): " + asyncId);
             return;
         }
-        boolean offered = queue.offer(payloadJson == null ? "" : payloadJson);
+        boolean offered = queue.offer(payload == null ? "" : payload);
         if (!offered) {
             Logger.warn("Async result ignored (already completed): " + asyncId);
         }
     }
 
+    public int getPendingDispatches() {
+        return pendingDispatches.get();
+    }
+
+    public long getLastActiveAt() {
+        return lastActiveAt;
+    }
+
+    public boolean isClosed() {
+        return executor.isShutdown();
+    }
+
+    void beginDispatch() {
+        lastActiveAt = SystemClock.elapsedRealtime();
+        dispatchCount.incrementAndGet();
+        pendingDispatches.incrementAndGet();
+    }
+
+    void endDispatch() {
+        lastActiveAt = SystemClock.elapsedRealtime();
+        pendingDispatches.decrementAndGet();
+    }
+
+    public void cancelOwnedRequests(String requestKey) {
+        LxNativeImpl impl = nativeImpl;
+        if (impl != null) {
+            impl.cancelOwnedRequests(requestKey);
+        }
+    }
+
     public void prepareAsyncResult(String asyncId) {
         if (asyncId == null) return;
         asyncResults.putIfAbsent(asyncId, new ArrayBlockingQueue<>(1));
     }
 
-    public String awaitAsyncResult(String asyncId, long timeoutMs) throws Exception {
+    public Object awaitAsyncResult(String asyncId, long timeoutMs) throws Exception {
         if (asyncId == null) {
             throw new Exception("Async id missing");
         }
-        ArrayBlockingQueue<String> queue = asyncResults.get(asyncId);
+        ArrayBlockingQueue<Object> queue = asyncResults.get(asyncId);
         if (queue == null) {
             throw new Exception("Async task not prepared");
         }
         try {
-            String payload = queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+            Object payload = queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
             if (payload == null) {
                 long seconds = Math.max(1, timeoutMs / 1000);
                 throw new Exception("Request timeout (" + seconds + "s)");
@@ -253,6 +439,158 @@ public class ScriptContext {
                 + "};");
     }
 
+    private JSFunction resolveNativeEntry() {
+        if (nativeEntry == null && jsContext != null) {
+            nativeEntry = jsContext.getGlobalObject().getJSFunction("__lx_native__");
+        }
+        return nativeEntry;
+    }
+
+    private void applyLimits(QuickJSContext context) {
+        try {
+            if (limits.getMemoryLimitBytes() > 0) {
+                context.setMemoryLimit(limits.getMemoryLimitBytes());
+            }
+            if (limits.getMaxStackBytes() > 0) {
+                context.setMaxStackSize(limits.getMaxStackBytes());
+            }
+            if (limits.getGcThresholdBytes() > 0) {
+                context.setGCThreshold(limits.getGcThresholdBytes());
+            }
+        } catch (Exception e) {
+            Logger.warn("Script limits not applied: " + scriptId + " - " + e.getMessage());
+        }
+    }
+
+    private synchronized void startHeapMonitor() {
+        if (heapMonitor != null || executor.isShutdown()) return;
+        try {
+            heapMonitor = executor.scheduleWithFixedDelay(this::checkHeap, 0, HEAP_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            Logger.warn("Script heap monitor rejected: " + scriptId);
+        }
+    }
+
+    private synchronized void stopHeapMonitor() {
+        if (heapMonitor != null) {
+            heapMonitor.cancel(false);
+            heapMonitor = null;
+        }
+    }
+
+    private void checkOutOfMemory(Exception e) {
+        String message = e.getMessage();
+        if (message == null || !message.toLowerCase(Locale.US).contains("out of memory")) return;
+        outOfMemory = true;
+        checkHeap();
+    }
+
+    private void checkHeap() {
+        if (jsContext == null) return;
+        int count = dispatchCount.get();
+        if (!outOfMemory && count == lastHeapCheckCount) return;
+        lastHeapCheckCount = count;
+        try {
+            jsContext.runGC();
+            long used = readHeapUsage();
+            if (used >= 0) {
+                heapUsedBytes = used;
+            }
+        } catch (Exception e) {
+            Logger.warn("Script heap check failed: " + scriptId + " - " + e.getMessage());
+        }
+        int limit = limits.getMemoryLimitBytes();
+        boolean exceeded = outOfMemory || (limit > 0 && heapUsedBytes >= limit * HEAP_BUDGET_RATIO);
+        MemoryListener listener = memoryListener;
+        if (!exceeded || recycleRequested || listener == null) return;
+        recycleRequested = true;
+        listener.onMemoryBudgetExceeded(this, heapUsedBytes);
+    }
+
+    void cancelRecycle() {
+        outOfMemory = false;
+        recycleRequested = false;
+    }
+
+    private long readHeapUsage() throws Exception {
+        if (heapDumpFile == null) {
+            heapDumpFile = File.createTempFile("qjs_heap_", ".txt");
+        }
+        jsContext.dumpMemoryUsage(heapDumpFile);
+        try (BufferedReader reader = new BufferedReader(new FileReader(heapDumpFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (!trimmed.startsWith("memory used")) continue;
+                String[] parts = trimmed.split("\\s+");
+                if (parts.length >= 4) {
+                    return Long.parseLong(parts[3]);
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void fireTimers(List<Long> ids) {
+        if (jsContext == null || ids.isEmpty()) return;
+        StringBuilder builder = new StringBuilder(ids.size() * 4 + 2).append('[');
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) builder.append(',');
+            builder.append(ids.get(i));
+        }
+        builder.append(']');
+        activeRequestKey = null;
+        try {
+            JSFunction entry = resolveNativeEntry();
+            if (entry != null) {
+                release(entry.call(nativeKey, "__set_timeout__", builder.toString()));
+            }
+        } catch (Exception e) {
+            Logger.error("Script timer error: " + e.getMessage(), e);
+            checkOutOfMemory(e);
+        }
+    }
+
+    private void releaseNativeEntry() {
+        if (nativeEntry != null) {
+            nativeEntry.release();
+            nativeEntry = null;
+        }
+    }
+
+    private static void release(Object value) {
+        if (value instanceof JSObject) {
+            ((JSObject) value).release();
+        }
+    }
+
+    private void evaluateCached(String source, String fileName) {
+        if (bytecodeCache == null) {
+            jsContext.evaluate(source, fileName);
+            return;
+        }
+        String key = bytecodeCache.keyOf(fileName, source);
+        byte[] bytecode = bytecodeCache.load(key);
+        if (bytecode != null) {
+            try {
+                jsContext.execute(bytecode);
+                return;
+            } catch (Exception e) {
+                Logger.warn("Bytecode rejected, recompiling " + fileName + ": " + e.getMessage());
+                bytecodeCache.invalidate(key);
+            }
+        }
+        try {
+            bytecode = jsContext.compile(source, fileName);
+        } catch (Exception e) {
+            Logger.warn("Bytecode compile failed for " + fileName + ": " + e.getMessage());
+            jsContext.evaluate(source, fileName);
+            return;
+        }
+        jsContext.execute(bytecode);
+        bytecodeCache.store(key, bytecode);
+    }
+
     private void callSetup(ScriptMeta meta, String rawScript) {
         if (jsContext == null) return;
         String id = meta == null || meta.getId() == null ? "" : meta.getId();
@@ -0,0 +1,77 @@
+package mindrift.app.music.core.script;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class ScriptContextPool {
+    private final String scriptId;
+    private volatile ScriptContext primary;
+    private final List<ScriptContext> members = new CopyOnWriteArrayList<>();
+
+    ScriptContextPool(String scriptId, ScriptContext primary) {
+        this.scriptId = scriptId;
+        this.primary = primary;
+        this.members.add(primary);
+    }
+
+    String getScriptId() {
+        return scriptId;
+    }
+
+    ScriptContext getPrimary() {
+        return primary;
+    }
+
+    void addReplica(ScriptContext context) {
+        if (context != null) {
+            members.add(context);
+        }
+    }
+
+    boolean contains(ScriptContext context) {
+        return members.contains(context);
+    }
+
+    boolean replace(ScriptContext oldContext, ScriptContext newContext) {
+        int index = members.indexOf(oldContext);
+        if (index < 0 || newContext == null) return false;
+        members.set(index, newContext);
+        if (primary == oldContext) {
+            primary = newContext;
+        }
+        return true;
+    }
+
+    List<ScriptContext> getMembers() {
+        return new ArrayList<>(members);
+    }
+
+    int size() {
+        return members.size();
+    }
+
+    ScriptContext select() {
+        ScriptContext best = primary;
+        int bestPending = Integer.MAX_VALUE;
+        for (ScriptContext context : members) {
+            int pending = context.getPendingDispatches();
+            if (pending < bestPending) {
+                best = context;
+                bestPending = pending;
+                if (pending == 0) break;
+            }
+        }
+        return best;
+    }
+
+    void closeReplicas() {
+        for (ScriptContext context : members) {
+            if (context != primary) {
+                context.close();
+            }
+        }
+        members.clear();
+        members.add(primary);
+    }
+}
@@ -0,0 +1,37 @@
+package mindrift.app.music.core.script;
+
+import android.content.Context;
+import mindrift.app.music.utils.SettingsStore;
+
+public class ScriptLimits {
+    public static final ScriptLimits DEFAULT = new ScriptLimits(32 * 1024 * 1024, 512 * 1024, 2 * 1024 * 1024);
+
+    private final int memoryLimitBytes;
+    private final int maxStackBytes;
+    private final int gcThresholdBytes;
+
+    public ScriptLimits(int memoryLimitBytes, int maxStackBytes, int gcThresholdBytes) {
+        this.memoryLimitBytes = Math.max(0, memoryLimitBytes);
+        this.maxStackBytes = Math.max(0, maxStackBytes);
+        this.gcThresholdBytes = Math.max(0, gcThresholdBytes);
+    }
+
+    public static ScriptLimits from(Context context) {
+        return new ScriptLimits(
+                SettingsStore.getScriptMemoryLimitMb(context) * 1024 * 1024,
+                SettingsStore.getScriptStackKb(context) * 1024,
+                SettingsStore.getScriptGcThresholdKb(context) * 1024);
+    }
+
+    public int getMemoryLimitBytes() {
+        return memoryLimitBytes;
+    }
+
+    public int getMaxStackBytes() {
+        return maxStackBytes;
+    }
+
+    public int getGcThresholdBytes() {
+        return gcThresholdBytes;
+    }
+}
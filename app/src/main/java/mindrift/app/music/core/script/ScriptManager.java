@@ -2,8 +2,8 @@ package mindrift.app.music.core.script;
 
 import android.content.Context;
 import android.content.res.AssetManager;
+import android.os.SystemClock;
 import com.google.gson.Gson;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -20,23 +20,73 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import mindrift.app.music.core.engine.LxNativeImpl;
 import mindrift.app.music.core.network.HttpClient;
+import mindrift.app.music.core.proxy.CircuitBreaker;
+import mindrift.app.music.core.proxy.ProviderRanking;
+import mindrift.app.music.core.proxy.RequestProxy;
 import mindrift.app.music.core.proxy.ScriptHandler;
 import mindrift.app.music.utils.Logger;
+import mindrift.app.music.utils.SettingsStore;
 
 public class ScriptManager implements LxNativeImpl.ScriptEventListener {
     private final File scriptsDir;
     private final String preloadScript;
     private final Gson gson = new Gson();
     private final Map<String, ScriptContext> scripts = new ConcurrentHashMap<>();
+    private final Map<String, ScriptContextPool> pools = new ConcurrentHashMap<>();
+    private final Map<String, ScriptContext> dispatchContexts = new ConcurrentHashMap<>();
     private final Map<String, ScriptInfo> scriptInfos = new ConcurrentHashMap<>();
     private final Map<String, ScriptMeta> scriptMetas = new ConcurrentHashMap<>();
     private final Map<String, List<ScriptHandler>> sourceMap = new ConcurrentHashMap<>();
     private final Map<String, Integer> sourceIndex = new ConcurrentHashMap<>();
+    private final ProviderRanking providerRanking = new ProviderRanking(RequestProxy.REQUEST_TIMEOUT_MS);
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
     private final HttpClient httpClient = new HttpClient();
     private final List<ScriptChangeListener> changeListeners = new CopyOnWriteArrayList<>();
     private final List<UpdateAlertListener> updateAlertListeners = new CopyOnWriteArrayList<>();
+    private final int contextPoolSize;
+    private final ScriptLimits limits;
+    private final Map<String, AtomicInteger> recycleCounts = new ConcurrentHashMap<>();
+    private final Map<String, WakeStats> wakeStats = new ConcurrentHashMap<>();
+    private final ScriptContext.MemoryListener memoryListener = this::onMemoryBudgetExceeded;
+    private final Set<String> hibernated = ConcurrentHashMap.newKeySet();
+    private final Set<String> quietInits = ConcurrentHashMap.newKeySet();
+    private final Map<String, Object> wakeLocks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService idleScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "script-idle");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> idleSweep;
+    private volatile long idleTimeoutMs;
+    private final ScriptBytecodeCache bytecodeCache;
+    private final AtomicInteger loadGeneration = new AtomicInteger();
+    private final AtomicInteger loaderIndex = new AtomicInteger();
+    private final ExecutorService loaderExecutor = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            r -> new Thread(r, "script-loader-" + loaderIndex.incrementAndGet()));
+    private static final long MAX_IMPORT_BYTES = 4 * 1024 * 1024L;
+    private static final long RECYCLE_DRAIN_MS = 30 * 1000L;
+    private static final long RECYCLE_POLL_MS = 100L;
+    private static final long IDLE_SWEEP_MS = 60 * 1000L;
+    private static final LxNativeImpl.ScriptEventListener REPLICA_EVENTS = new LxNativeImpl.ScriptEventListener() {
+        @Override
+        public void onInited(String scriptId, String dataJson) {
+        }
+
+        @Override
+        public void onUpdateAlert(String scriptId, String dataJson) {
+        }
+    };
 
     public interface ImportCallback {
         void onSuccess(File file);
@@ -59,43 +109,89 @@ public class ScriptManager implements LxNativeImpl.ScriptEventListener {
     }
 
     public ScriptManager(Context context) {
-        this(new File(context.getFilesDir(), "scripts"), loadPreloadScript(context));
+        this(new File(context.getFilesDir(), "scripts"), loadPreloadScript(context), SettingsStore.getScriptContextPoolSize(context), ScriptLimits.from(context));
+        setIdleTimeoutMs(SettingsStore.getScriptIdleMinutes(context) * 60 * 1000L);
     }
 
     public ScriptManager(File scriptsDir, String preloadScript) {
+        this(scriptsDir, preloadScript, 1);
+    }
+
+    public ScriptManager(File scriptsDir, String preloadScript, int contextPoolSize) {
+        this(scriptsDir, preloadScript, contextPoolSize, ScriptLimits.DEFAULT);
+    }
+
+    public ScriptManager(File scriptsDir, String preloadScript, int contextPoolSize, ScriptLimits limits) {
         this.scriptsDir = scriptsDir;
+        this.limits = limits == null ? ScriptLimits.DEFAULT : limits;
         this.preloadScript = preloadScript == null ? "" : preloadScript;
+        this.contextPoolSize = Math.max(1, contextPoolSize);
+        this.bytecodeCache = new ScriptBytecodeCache(new File(scriptsDir.getParentFile(), "script_bytecode"));
         if (!scriptsDir.exists() && !scriptsDir.mkdirs()) {
             Logger.warn("Failed to create scripts directory: " + scriptsDir.getAbsolutePath());
         }
-        loadScripts();
+    }
+
+    public void start() {
+        startLoading();
     }
 
     public void loadScripts() {
+        for (Future<?> future : startLoading()) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                Logger.warn("Script load task failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized List<Future<?>> startLoading() {
+        int generation = loadGeneration.incrementAndGet();
+        closeReplicas();
         for (ScriptContext context : scripts.values()) {
             if (context != null) {
                 context.close();
             }
         }
         scripts.clear();
+        hibernated.clear();
         scriptInfos.clear();
         scriptMetas.clear();
         sourceMap.clear();
         sourceIndex.clear();
         List<File> files = listScriptFilesInternal();
+        if (files.isEmpty()) {
+            notifyScriptsChanged();
+            return Collections.emptyList();
+        }
+        AtomicInteger remaining = new AtomicInteger(files.size());
+        List<Future<?>> futures = new ArrayList<>(files.size());
         for (File file : files) {
-            loadScript(file);
+            futures.add(loaderExecutor.submit(() -> {
+                try {
+                    loadScript(file, generation);
+                } finally {
+                    if (remaining.decrementAndGet() == 0 && generation == loadGeneration.get()) {
+                        Logger.info("Scripts loaded: " + scripts.size() + "/" + files.size());
+                        notifyScriptsChanged();
+                    }
+                }
+            }));
         }
-        notifyScriptsChanged();
+        return futures;
     }
 
     public List<String> getLoadedScriptIds() {
-        return new ArrayList<>(scripts.keySet());
+        return new ArrayList<>(loadedScriptIds());
     }
 
     public List<ScriptEntry> getLoadedScripts() {
         List<ScriptEntry> entries = new ArrayList<>();
-        for (String scriptId : scripts.keySet()) {
+        for (String scriptId : loadedScriptIds()) {
             String name = resolveScriptName(scriptId);
             entries.add(new ScriptEntry(scriptId, name));
         }
@@ -220,10 +316,15 @@ public class ScriptManager implements LxNativeImpl.ScriptEventListener {
     }
 
     public boolean deleteScript(String scriptId) {
+        ScriptContextPool pool = pools.remove(scriptId);
+        if (pool != null) {
+            pool.closeReplicas();
+        }
         ScriptContext context = scripts.remove(scriptId);
         if (context != null) {
             context.close();
         }
+        hibernated.remove(scriptId);
         scriptInfos.remove(scriptId);
         scriptMetas.remove(scriptId);
         File target = new File(scriptsDir, scriptId);
@@ -240,12 +341,24 @@ public class ScriptManager implements LxNativeImpl.ScriptEventListener {
             safeName = safeName + ".js";
         }
         File target = new File(scriptsDir, safeName);
-        try (FileOutputStream output = new FileOutputStream(target)) {
+        File temp = new File(scriptsDir, safeName + ".part");
+        try (FileOutputStream output = new FileOutputStream(temp, false)) {
             byte[] buffer = new byte[8192];
             int read;
             while ((read = inputStream.read(buffer)) != -1) {
                 output.write(buffer, 0, read);
             }
+        } catch (IOException e) {
+            if (temp.exists() && !temp.delete()) {
+                Logger.warn("Failed to delete partial import: " + temp.getName());
+            }
+            throw e;
+        }
+        if (target.exists() && !target.delete()) {
+            Logger.warn("Failed to replace script: " + target.getName());
+        }
+        if (!temp.renameTo(target)) {
+            throw new IOException("Failed to save script: " + target.getName());
         }
         return target;
     }
@@ -253,16 +366,17 @@ public class ScriptManager implements LxNativeImpl.ScriptEventListener {
     public void importFromUrl(String url, ImportCallback callback) {
         Map<String, Object> options = new HashMap<>();
         options.put("method", "GET");
-        httpClient.request(url, options, new HttpClient.NetworkCallback() {
+        options.put("maxBytes", MAX_IMPORT_BYTES);
+        httpClient.requestStreamWithCall(url, options, new HttpClient.StreamCallback() {
             @Override
-            public void onSuccess(int code, String body, Map<String, String> headers) {
+            public void onResponse(int code, InputStream body, long contentLength, Map<String, String> headers) {
                 if (code < 200 || code >= 300) {
                     callback.onFailure(new IOException("HTTP " + code));
                     return;
                 }
                 String fileName = deriveFileName(url, headers);
-                try (InputStream input = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))) {
-                    File file = importFromStream(fileName, input);
+                try {
+                    File file = importFromStream(fileName, body);
                     callback.onSuccess(file);
                 } catch (Exception e) {
                     callback.onFailure(e);
@@ -312,11 +426,41 @@ public class ScriptManager implements LxNativeImpl.ScriptEventListener {
         List<ScriptHandler> ordered = new ArrayList<>(count);
         for (int i = 0; i < count; i++) {
             ScriptHandler handler = handlers.get((index + i) % count);
-            if (handler.supportsAction(action)) {
-                ordered.add(handler);
+            if (!handler.supportsAction(action)) continue;
+            if (!circuitBreaker.isAvailable(handler.getScriptId(), source)) {
+                Logger.info("Skip handler (circuit open): " + handler.getScriptId());
+                continue;
             }
+            ordered.add(handler);
+        }
+        return providerRanking.rank(ordered, source, action);
+    }
+
+    public boolean hasHandlers(String source, String action) {
+        List<ScriptHandler> handlers = sourceMap.get(source);
+        if (handlers == null) return false;
+        for (ScriptHandler handler : handlers) {
+            if (handler.supportsAction(action)) return true;
+        }
+        return false;
+    }
+
+    public int countHandlers(String source, String action) {
+        List<ScriptHandler> handlers = sourceMap.get(source);
+        if (handlers == null) return 0;
+        int count = 0;
+        for (ScriptHandler handler : handlers) {
+            if (handler.supportsAction(action)) count++;
         }
-        return ordered;
+        return count;
+    }
+
+    public ProviderRanking getProviderRanking() {
+        return providerRanking;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
     }
 
     public String dispatchRequest(String scriptId, String requestJson) {
@@ -324,81 +468,259 @@ public class ScriptManager implements LxNativeImpl.ScriptEventListener {
     }
 
     public String dispatchRequest(String scriptId, String requestJson, long timeoutMs) {
-        ScriptContext context = scripts.get(scriptId);
+        return dispatchRequest(scriptId, requestJson, timeoutMs, createRequestKey());
+    }
+
+    public String createRequestKey() {
+        return "request__" + System.currentTimeMillis() + "_" + Math.abs(new java.util.Random().nextInt());
+    }
+
+    public void cancelRequest(String scriptId, String requestKey) {
+        if (scriptId == null || requestKey == null) return;
+        ScriptContext context = dispatchContexts.get(requestKey);
         if (context == null) {
-            return errorJson("Script not found: " + scriptId);
+            context = scripts.get(scriptId);
         }
+        if (context == null) return;
+        Logger.info("Cancel request: " + scriptId + " key=" + requestKey);
+        context.cancelOwnedRequests(requestKey);
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("requestKey", requestKey);
+        payload.put("status", false);
+        payload.put("errorMessage", "Request cancelled");
+        context.completeAsyncResult(requestKey, payload);
+    }
+
+    public String dispatchRequest(String scriptId, String requestJson, long timeoutMs, String requestKey) {
+        Map<String, Object> request = gson.fromJson(requestJson, Map.class);
+        DispatchResult result = dispatch(scriptId, request, timeoutMs, requestKey);
+        return result.success ? gson.toJson(result.data) : errorJson(result.errorMessage);
+    }
+
+    public DispatchResult dispatch(String scriptId, Map<String, Object> request, long timeoutMs, String requestKey) {
+        ScriptContext context = acquireContext(scriptId);
+        if (context == null) {
+            return DispatchResult.failure("Script not found: " + scriptId);
+        }
+        dispatchContexts.put(requestKey, context);
         try {
-            Map<String, Object> requestMeta = gson.fromJson(requestJson, Map.class);
-            if (requestMeta != null) {
-                Object sourceObj = requestMeta.get("source");
-                Object actionObj = requestMeta.get("action");
-                Map<String, Object> infoObj = requestMeta.get("info") instanceof Map ? (Map<String, Object>) requestMeta.get("info") : null;
-                Object qualityObj = infoObj != null ? infoObj.get("type") : null;
-                String songId = null;
-                if (infoObj != null && infoObj.get("musicInfo") instanceof Map) {
-                    Map<String, Object> musicInfo = (Map<String, Object>) infoObj.get("musicInfo");
-                    Object mid = musicInfo.get("songmid");
-                    Object hash = musicInfo.get("hash");
-                    if (mid != null && !String.valueOf(mid).isEmpty()) songId = String.valueOf(mid);
-                    else if (hash != null && !String.valueOf(hash).isEmpty()) songId = String.valueOf(hash);
-                }
-                context.setLastRequestMeta(
-                        sourceObj == null ? null : String.valueOf(sourceObj),
-                        actionObj == null ? null : String.valueOf(actionObj),
-                        qualityObj == null ? null : String.valueOf(qualityObj)
-                );
-                if (songId != null) {
-                    context.setLastRequestSongId(songId);
+            return dispatchToContext(context, scriptId, request == null ? new HashMap<>() : request, timeoutMs, requestKey);
+        } finally {
+            dispatchContexts.remove(requestKey);
+            context.endDispatch();
+        }
+    }
+
+    public int getContextPoolSize() {
+        return contextPoolSize;
+    }
+
+    public void setIdleTimeoutMs(long timeoutMs) {
+        idleTimeoutMs = Math.max(0L, timeoutMs);
+        synchronized (idleScheduler) {
+            if (idleSweep != null) {
+                idleSweep.cancel(false);
+                idleSweep = null;
+            }
+            if (idleTimeoutMs <= 0 || idleScheduler.isShutdown()) return;
+            long interval = Math.max(1000L, Math.min(IDLE_SWEEP_MS, idleTimeoutMs / 2));
+            idleSweep = idleScheduler.scheduleWithFixedDelay(this::hibernateIdle, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isHibernated(String scriptId) {
+        return scriptId != null && hibernated.contains(scriptId);
+    }
+
+    private ScriptContext acquireContext(String scriptId) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            synchronized (lockFor(scriptId)) {
+                ScriptContext context = selectContext(scriptId);
+                if (context == null && hibernated.contains(scriptId)) {
+                    context = wakeScript(scriptId);
                 }
+                if (context == null) return null;
+                context.beginDispatch();
+                if (!context.isClosed()) return context;
+                context.endDispatch();
             }
-        } catch (Exception ignored) {
         }
-        Map<String, Object> request = gson.fromJson(requestJson, Map.class);
-        if (request == null) request = new HashMap<>();
-        String requestKey = "request__" + System.currentTimeMillis() + "_" + Math.abs(new java.util.Random().nextInt());
+        return null;
+    }
+
+    private Set<String> loadedScriptIds() {
+        Set<String> ids = new LinkedHashSet<>(scripts.keySet());
+        ids.addAll(hibernated);
+        return ids;
+    }
+
+    private Object lockFor(String scriptId) {
+        return wakeLocks.computeIfAbsent(scriptId, k -> new Object());
+    }
+
+    private void hibernateIdle() {
+        long timeout = idleTimeoutMs;
+        if (timeout <= 0) return;
+        long now = SystemClock.elapsedRealtime();
+        for (Map.Entry<String, ScriptContext> entry : scripts.entrySet()) {
+            String scriptId = entry.getKey();
+            if (!scriptInfos.containsKey(scriptId)) continue;
+            ScriptContextPool pool = pools.get(scriptId);
+            List<ScriptContext> members = pool == null ? Collections.singletonList(entry.getValue()) : pool.getMembers();
+            if (isIdle(members, now, timeout)) {
+                hibernate(scriptId, entry.getValue(), timeout);
+            }
+        }
+    }
+
+    private boolean isIdle(List<ScriptContext> members, long now, long timeout) {
+        for (ScriptContext context : members) {
+            if (context.getPendingDispatches() > 0 || context.getPendingTimers() > 0) return false;
+            if (now - context.getLastActiveAt() < timeout) return false;
+        }
+        return true;
+    }
+
+    private void hibernate(String scriptId, ScriptContext context, long timeout) {
+        synchronized (lockFor(scriptId)) {
+            ScriptContextPool pool = pools.get(scriptId);
+            List<ScriptContext> members = pool == null ? Collections.singletonList(context) : pool.getMembers();
+            if (!members.contains(context)) {
+                members = new ArrayList<>(members);
+                members.add(context);
+            }
+            if (!isIdle(members, SystemClock.elapsedRealtime(), timeout) || !scripts.remove(scriptId, context)) return;
+            hibernated.add(scriptId);
+            pool = pools.remove(scriptId);
+            if (pool != null) {
+                pool.closeReplicas();
+            }
+            context.close();
+        }
+        Logger.info("Script hibernated: " + scriptId);
+    }
+
+    private ScriptContext wakeScript(String scriptId) {
+        synchronized (lockFor(scriptId)) {
+            if (!hibernated.contains(scriptId)) return selectContext(scriptId);
+            int generation = loadGeneration.get();
+            ScriptMeta meta = scriptMetas.get(scriptId);
+            String scriptContent = readFile(new File(scriptsDir, scriptId));
+            if (meta == null || scriptContent == null) return null;
+            long startedAt = SystemClock.elapsedRealtime();
+            ScriptContext context = newContext(scriptId);
+            scripts.put(scriptId, context);
+            hibernated.remove(scriptId);
+            quietInits.add(scriptId);
+            try {
+                context.initialize(meta, preloadScript, scriptContent, new LxNativeImpl(context, scriptId, this));
+            } catch (Exception e) {
+                Logger.error("Failed to wake script: " + scriptId, e);
+                scripts.remove(scriptId, context);
+                hibernated.add(scriptId);
+                context.close();
+                return null;
+            } finally {
+                quietInits.remove(scriptId);
+            }
+            if (generation != loadGeneration.get()) {
+                scripts.remove(scriptId, context);
+                context.close();
+                return null;
+            }
+            buildPool(scriptId, context, meta, scriptContent);
+            long costMs = SystemClock.elapsedRealtime() - startedAt;
+            wakeStats.computeIfAbsent(scriptId, k -> new WakeStats()).record(costMs);
+            Logger.info("Script woke up: " + scriptId + " in " + costMs + "ms");
+            return selectContext(scriptId);
+        }
+    }
+
+    private ScriptContext selectContext(String scriptId) {
+        ScriptContextPool pool = pools.get(scriptId);
+        if (pool != null && pool.size() > 1) {
+            return pool.select();
+        }
+        return scripts.get(scriptId);
+    }
+
+    private void closeReplicas() {
+        for (ScriptContextPool pool : pools.values()) {
+            pool.closeReplicas();
+        }
+        pools.clear();
+    }
+
+    private DispatchResult dispatchToContext(ScriptContext context, String scriptId, Map<String, Object> request, long timeoutMs, String requestKey) {
+        recordRequestMeta(context, request);
         Map<String, Object> payload = new HashMap<>();
         payload.put("requestKey", requestKey);
         payload.put("data", request);
+        String payloadJson = gson.toJson(payload);
 
-        String js = "__lx_native__("
-                + toJsStringLiteral(context.getNativeKey())
-                + ", "
-                + toJsStringLiteral("request")
-                + ", "
-                + toJsStringLiteral(gson.toJson(payload))
-                + ");";
-        Logger.info("Dispatch request to script: " + scriptId + " key=" + requestKey + " bytes=" + (requestJson == null ? 0 : requestJson.length()));
+        Logger.info("Dispatch request to script: " + scriptId + " key=" + requestKey + " bytes=" + payloadJson.length());
         context.prepareAsyncResult(requestKey);
-        context.evaluateAsync(js);
+        context.callNativeAsync("request", payloadJson, requestKey);
 
         try {
-            String responseJson = context.awaitAsyncResult(requestKey, timeoutMs);
-            Logger.info("Dispatch result: " + (responseJson == null ? "null" : ("bytes=" + responseJson.length())));
-            if (responseJson == null || responseJson.isEmpty()) {
-                return errorJson("Empty response");
-            }
-            Map<String, Object> response = gson.fromJson(responseJson, Map.class);
-            if (response == null) {
-                return responseJson;
-            }
-            Object statusObj = response.get("status");
-            boolean status = statusObj instanceof Boolean && (Boolean) statusObj;
-            if (status) {
-                Object result = response.get("result");
-                if (result instanceof Map) {
-                    Object data = ((Map<?, ?>) result).get("data");
-                    return gson.toJson(data != null ? data : result);
-                }
-                return gson.toJson(result);
-            } else {
-                String message = response.get("errorMessage") == null ? "Request failed" : String.valueOf(response.get("errorMessage"));
-                return errorJson(message);
-            }
+            return toDispatchResult(context.awaitAsyncResult(requestKey, timeoutMs));
         } catch (Exception e) {
             Logger.error("Dispatch error: " + e.getMessage(), e);
-            return errorJson(e.getMessage() == null ? "Unknown error" : e.getMessage());
+            return DispatchResult.failure(e.getMessage() == null ? "Unknown error" : e.getMessage());
+        }
+    }
+
+    private void recordRequestMeta(ScriptContext context, Map<String, Object> request) {
+        Object sourceObj = request.get("source");
+        Object actionObj = request.get("action");
+        Map<String, Object> infoObj = request.get("info") instanceof Map ? (Map<String, Object>) request.get("info") : null;
+        Object qualityObj = infoObj != null ? infoObj.get("type") : null;
+        String songId = null;
+        if (infoObj != null && infoObj.get("musicInfo") instanceof Map) {
+            Map<String, Object> musicInfo = (Map<String, Object>) infoObj.get("musicInfo");
+            Object mid = musicInfo.get("songmid");
+            Object hash = musicInfo.get("hash");
+            if (mid != null && !String.valueOf(mid).isEmpty()) songId = String.valueOf(mid);
+            else if (hash != null && !String.valueOf(hash).isEmpty()) songId = String.valueOf(hash);
+        }
+        context.setLastRequestMeta(
+                sourceObj == null ? null : String.valueOf(sourceObj),
+                actionObj == null ? null : String.valueOf(actionObj),
+                qualityObj == null ? null : String.valueOf(qualityObj)
+        );
+        if (songId != null) {
+            context.setLastRequestSongId(songId);
+        }
+    }
+
+    private DispatchResult toDispatchResult(Object response) {
+        if (response instanceof String) {
+            String responseJson = (String) response;
+            Logger.info("Dispatch result: bytes=" + responseJson.length());
+            if (responseJson.isEmpty()) {
+                return DispatchResult.failure("Empty response");
+            }
+            response = gson.fromJson(responseJson, Object.class);
         }
+        if (response == null) {
+            return DispatchResult.failure("Empty response");
+        }
+        if (!(response instanceof Map)) {
+            return DispatchResult.success(response);
+        }
+        Map<?, ?> map = (Map<?, ?>) response;
+        Object statusObj = map.get("status");
+        boolean status = statusObj instanceof Boolean && (Boolean) statusObj;
+        if (!status) {
+            String errorMessage = map.get("errorMessage") == null ? "Request failed" : String.valueOf(map.get("errorMessage"));
+            return Boolean.TRUE.equals(map.get("crashed")) ? DispatchResult.failure(errorMessage) : DispatchResult.rejected(errorMessage);
+        }
+        Object result = map.get("result");
+        if (result instanceof Map) {
+            Object data = ((Map<?, ?>) result).get("data");
+            return DispatchResult.success(data != null ? data : result);
+        }
+        return DispatchResult.success(result);
     }
 
     @Override
@@ -412,6 +734,9 @@ public class ScriptManager implements LxNativeImpl.ScriptEventListener {
             registerSources(scriptId, context, info);
             int sourceCount = info == null || info.getSources() == null ? 0 : info.getSources().size();
             Logger.info("Script inited: " + scriptId + " sources=" + sourceCount);
+            if (!quietInits.contains(scriptId)) {
+                notifyScriptsChanged();
+            }
         } catch (Exception e) {
             Logger.warn("Failed to parse script init data for " + scriptId + ": " + e.getMessage());
         }
@@ -425,36 +750,240 @@ public class ScriptManager implements LxNativeImpl.ScriptEventListener {
     }
 
     private void registerSources(String scriptId, ScriptContext context, ScriptInfo info) {
+        for (List<ScriptHandler> handlers : sourceMap.values()) {
+            handlers.removeIf(handler -> scriptId.equals(handler.getScriptId()));
+        }
         if (info == null || info.getSources() == null) return;
         for (Map.Entry<String, SourceInfo> entry : info.getSources().entrySet()) {
             String source = entry.getKey();
             SourceInfo sourceInfo = entry.getValue();
             if (sourceInfo == null || !"music".equalsIgnoreCase(sourceInfo.getType())) continue;
-            List<ScriptHandler> handlers = sourceMap.computeIfAbsent(source, k -> new ArrayList<>());
+            List<ScriptHandler> handlers = sourceMap.computeIfAbsent(source, k -> new CopyOnWriteArrayList<>());
             handlers.add(new ScriptHandler(scriptId, context, sourceInfo));
         }
     }
 
-    private void loadScript(File file) {
+    private void loadScript(File file, int generation) {
         String scriptId = file.getName();
         String scriptContent = readFile(file);
         if (scriptContent == null) return;
 
-        String nativeKey = "key_" + System.currentTimeMillis() + "_" + Math.abs(new java.util.Random().nextInt());
-        ScriptContext context = new ScriptContext(scriptId, nativeKey);
+        ScriptContext context = newContext(scriptId);
         LxNativeImpl nativeImpl = new LxNativeImpl(context, scriptId, this);
 
         try {
             ScriptMeta meta = parseMeta(scriptContent, file.getName());
+            if (generation != loadGeneration.get()) {
+                context.close();
+                return;
+            }
             scriptMetas.put(scriptId, meta);
             scripts.put(scriptId, context);
             context.initialize(meta, preloadScript, scriptContent, nativeImpl);
+            if (generation != loadGeneration.get()) {
+                Logger.info("Discard stale script load: " + scriptId);
+                scripts.remove(scriptId, context);
+                context.close();
+                return;
+            }
             Logger.info("Loaded script: " + scriptId);
         } catch (Exception e) {
             Logger.error("Failed to load script: " + scriptId, e);
-            scripts.remove(scriptId);
+            scripts.remove(scriptId, context);
             scriptMetas.remove(scriptId);
             context.close();
+            return;
+        }
+        buildPool(scriptId, context, scriptMetas.get(scriptId), scriptContent);
+    }
+
+    private void buildPool(String scriptId, ScriptContext context, ScriptMeta meta, String scriptContent) {
+        if (contextPoolSize <= 1) return;
+        ScriptContextPool pool = new ScriptContextPool(scriptId, context);
+        for (int i = 1; i < contextPoolSize; i++) {
+            ScriptContext replica = createReplica(scriptId, meta, scriptContent);
+            if (replica == null) break;
+            pool.addReplica(replica);
+        }
+        pools.put(scriptId, pool);
+        Logger.info("Script context pool: " + scriptId + " size=" + pool.size());
+    }
+
+    private ScriptContext createReplica(String scriptId, ScriptMeta meta, String scriptContent) {
+        ScriptContext replica = newContext(scriptId);
+        try {
+            replica.initialize(meta, preloadScript, scriptContent, new LxNativeImpl(replica, scriptId, REPLICA_EVENTS));
+            return replica;
+        } catch (Exception e) {
+            Logger.warn("Failed to init script replica: " + scriptId + " - " + e.getMessage());
+            replica.close();
+            return null;
+        }
+    }
+
+    private ScriptContext newContext(String scriptId) {
+        String nativeKey = "key_" + System.currentTimeMillis() + "_" + Math.abs(new java.util.Random().nextInt());
+        ScriptContext context = new ScriptContext(scriptId, nativeKey, bytecodeCache, limits);
+        context.setMemoryListener(memoryListener);
+        return context;
+    }
+
+    private void onMemoryBudgetExceeded(ScriptContext context, long usedBytes) {
+        Logger.warn("Script heap over budget: " + context.getScriptId() + " used=" + usedBytes
+                + " limit=" + limits.getMemoryLimitBytes());
+        try {
+            loaderExecutor.execute(() -> recycleContext(context));
+        } catch (RejectedExecutionException e) {
+            Logger.warn("Script recycle rejected: " + context.getScriptId());
+        }
+    }
+
+    private void recycleContext(ScriptContext old) {
+        String scriptId = old.getScriptId();
+        int generation = loadGeneration.get();
+        ScriptMeta meta = scriptMetas.get(scriptId);
+        String scriptContent = readFile(new File(scriptsDir, scriptId));
+        if (meta == null || scriptContent == null) {
+            old.cancelRecycle();
+            return;
+        }
+        ScriptContextPool pool = pools.get(scriptId);
+        if (scripts.get(scriptId) == old) {
+            ScriptContext fresh = newContext(scriptId);
+            if (!scripts.replace(scriptId, old, fresh)) {
+                fresh.close();
+                return;
+            }
+            quietInits.add(scriptId);
+            try {
+                fresh.initialize(meta, preloadScript, scriptContent, new LxNativeImpl(fresh, scriptId, this));
+            } catch (Exception e) {
+                Logger.error("Failed to recycle script: " + scriptId, e);
+                scripts.replace(scriptId, fresh, old);
+                fresh.close();
+                old.cancelRecycle();
+                return;
+            } finally {
+                quietInits.remove(scriptId);
+            }
+            if (generation != loadGeneration.get()) return;
+            if (pool != null) {
+                pool.replace(old, fresh);
+            }
+        } else if (pool != null && pool.contains(old)) {
+            ScriptContext fresh = createReplica(scriptId, meta, scriptContent);
+            if (fresh == null) {
+                old.cancelRecycle();
+                return;
+            }
+            if (generation != loadGeneration.get() || !pool.replace(old, fresh)) {
+                fresh.close();
+                return;
+            }
+        } else {
+            return;
+        }
+        recycleCounts.computeIfAbsent(scriptId, k -> new AtomicInteger()).incrementAndGet();
+        Logger.info("Script context recycled: " + scriptId);
+        drainAndClose(old);
+    }
+
+    private void drainAndClose(ScriptContext context) {
+        drainAndClose(context, System.currentTimeMillis() + RECYCLE_DRAIN_MS);
+    }
+
+    private void drainAndClose(ScriptContext context, long deadline) {
+        if (context.getPendingDispatches() <= 0 || System.currentTimeMillis() >= deadline) {
+            context.close();
+            return;
+        }
+        try {
+            idleScheduler.schedule(() -> drainAndClose(context, deadline), RECYCLE_POLL_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            context.close();
+        }
+    }
+
+    public List<HeapSnapshot> getHeapSnapshot() {
+        List<HeapSnapshot> result = new ArrayList<>();
+        for (Map.Entry<String, ScriptContext> entry : scripts.entrySet()) {
+            String scriptId = entry.getKey();
+            ScriptContextPool pool = pools.get(scriptId);
+            List<ScriptContext> members = pool == null ? Collections.singletonList(entry.getValue()) : pool.getMembers();
+            long used = 0;
+            for (ScriptContext context : members) {
+                used += Math.max(0, context.getHeapUsedBytes());
+            }
+            result.add(buildHeapSnapshot(scriptId, members.size(), used));
+        }
+        for (String scriptId : hibernated) {
+            result.add(buildHeapSnapshot(scriptId, 0, 0));
+        }
+        return result;
+    }
+
+    private HeapSnapshot buildHeapSnapshot(String scriptId, int contexts, long used) {
+        AtomicInteger recycles = recycleCounts.get(scriptId);
+        WakeStats wakes = wakeStats.get(scriptId);
+        return new HeapSnapshot(scriptId, contexts, used, limits.getMemoryLimitBytes(),
+                recycles == null ? 0 : recycles.get(),
+                wakes == null ? 0 : wakes.count,
+                wakes == null ? 0L : wakes.lastCostMs);
+    }
+
+    public static class DispatchResult {
+        public final boolean success;
+        public final Object data;
+        public final String errorMessage;
+        public final boolean rejected;
+
+        private DispatchResult(boolean success, Object data, String errorMessage, boolean rejected) {
+            this.success = success;
+            this.data = data;
+            this.errorMessage = errorMessage;
+            this.rejected = rejected;
+        }
+
+        static DispatchResult success(Object data) {
+            return new DispatchResult(true, data, null, false);
+        }
+
+        static DispatchResult failure(String errorMessage) {
+            return new DispatchResult(false, null, errorMessage, false);
+        }
+
+        static DispatchResult rejected(String errorMessage) {
+            return new DispatchResult(false, null, errorMessage, true);
+        }
+    }
+
+    public static class HeapSnapshot {
+        public final String scriptId;
+        public final int contexts;
+        public final long usedBytes;
+        public final long limitBytes;
+        public final int recycles;
+        public final int wakes;
+        public final long lastWakeMs;
+
+        HeapSnapshot(String scriptId, int contexts, long usedBytes, long limitBytes, int recycles, int wakes, long lastWakeMs) {
+            this.scriptId = scriptId;
+            this.contexts = contexts;
+            this.usedBytes = usedBytes;
+            this.limitBytes = limitBytes;
+            this.recycles = recycles;
+            this.wakes = wakes;
+            this.lastWakeMs = lastWakeMs;
+        }
+    }
+
+    private static class WakeStats {
+        volatile int count;
+        volatile long lastCostMs;
+
+        synchronized void record(long costMs) {
+            count++;
+            lastCostMs = costMs;
         }
     }
 
@@ -597,12 +1126,17 @@ public class ScriptManager implements LxNativeImpl.ScriptEventListener {
     }
 
     public void shutdown() {
+        loadGeneration.incrementAndGet();
+        loaderExecutor.shutdownNow();
+        idleScheduler.shutdownNow();
+        closeReplicas();
         for (ScriptContext context : scripts.values()) {
             if (context != null) {
                 context.close();
             }
         }
         scripts.clear();
+        hibernated.clear();
         scriptInfos.clear();
         scriptMetas.clear();
         sourceMap.clear();
@@ -618,21 +1152,6 @@ public class ScriptManager implements LxNativeImpl.ScriptEventListener {
         return gson.toJson(error);
     }
 
-    private String toJsStringLiteral(String value) {
-        if (value == null) {
-            return "null";
-        }
-        String escaped = value
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t")
-                .replace("\u2028", "\\u2028")
-                .replace("\u2029", "\\u2029");
-        return "\"" + escaped + "\"";
-    }
-
     private ScriptMeta parseMeta(String scriptContent, String fallbackName) {
         ScriptMeta meta = new ScriptMeta();
         meta.setId(fallbackName);
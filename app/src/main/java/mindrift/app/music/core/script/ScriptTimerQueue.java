@@ -0,0 +1,111 @@
+package mindrift.app.music.core.script;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import mindrift.app.music.utils.Logger;
+
+class ScriptTimerQueue {
+    private static final long COALESCE_MS = 10L;
+
+    interface Sink {
+        void onExpired(List<Long> ids);
+    }
+
+    private final ScheduledExecutorService executor;
+    private final Sink sink;
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>((a, b) -> a.deadline != b.deadline
+            ? Long.compare(a.deadline, b.deadline)
+            : Long.compare(a.seq, b.seq));
+    private final long startNanos = System.nanoTime();
+    private long seq;
+    private ScheduledFuture<?> wakeup;
+    private long wakeupAt = Long.MAX_VALUE;
+    private boolean closed;
+
+    ScriptTimerQueue(ScheduledExecutorService executor, Sink sink) {
+        this.executor = executor;
+        this.sink = sink;
+    }
+
+    synchronized void schedule(long id, long delayMs) {
+        if (closed) return;
+        timers.add(new Timer(id, elapsedMs() + Math.max(0L, delayMs), seq++));
+        arm();
+    }
+
+    synchronized int size() {
+        return timers.size();
+    }
+
+    synchronized void close() {
+        closed = true;
+        timers.clear();
+        cancelWakeup();
+    }
+
+    private void arm() {
+        Timer head = timers.peek();
+        if (head == null) {
+            cancelWakeup();
+            return;
+        }
+        if (wakeup != null && wakeupAt <= head.deadline) return;
+        cancelWakeup();
+        try {
+            wakeup = executor.schedule(this::fire, Math.max(0L, head.deadline - elapsedMs()), TimeUnit.MILLISECONDS);
+            wakeupAt = head.deadline;
+        } catch (RejectedExecutionException e) {
+            Logger.warn("Script timer rejected: " + head.id);
+            timers.clear();
+        }
+    }
+
+    private void fire() {
+        List<Long> expired = null;
+        synchronized (this) {
+            if (closed) return;
+            wakeup = null;
+            wakeupAt = Long.MAX_VALUE;
+            long limit = elapsedMs() + COALESCE_MS;
+            while (!timers.isEmpty() && timers.peek().deadline <= limit) {
+                if (expired == null) {
+                    expired = new ArrayList<>();
+                }
+                expired.add(timers.poll().id);
+            }
+            arm();
+        }
+        if (expired != null) {
+            sink.onExpired(expired);
+        }
+    }
+
+    private void cancelWakeup() {
+        if (wakeup != null) {
+            wakeup.cancel(false);
+            wakeup = null;
+            wakeupAt = Long.MAX_VALUE;
+        }
+    }
+
+    private long elapsedMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static class Timer {
+        final long id;
+        final long deadline;
+        final long seq;
+
+        Timer(long id, long deadline, long seq) {
+            this.id = id;
+            this.deadline = deadline;
+            this.seq = seq;
+        }
+    }
+}
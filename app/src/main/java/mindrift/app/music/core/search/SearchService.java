@@ -6,6 +6,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -21,12 +22,12 @@ public class SearchService {
     private static final int MAX_CACHE_SIZE = 100;
     private final HttpClient httpClient = new HttpClient();
     private final Gson gson = new Gson();
-    private final Map<String, CacheEntry<SearchResult>> cache = new LinkedHashMap<String, CacheEntry<SearchResult>>(16, 0.75f, true) {
+    private final Map<String, CacheEntry<SearchResult>> cache = Collections.synchronizedMap(new LinkedHashMap<String, CacheEntry<SearchResult>>(16, 0.75f, true) {
         @Override
         protected boolean removeEldestEntry(Map.Entry<String, CacheEntry<SearchResult>> eldest) {
             return size() > MAX_CACHE_SIZE;
         }
-    };
+    });
 
     public SearchResult search(String platform, String keyword, int page, Integer pageSize) {
         String normalizedPlatform = PlatformUtils.normalize(platform);
@@ -1,6 +1,7 @@
 package mindrift.app.music.ui;
 
 import android.os.Bundle;
+import android.text.format.Formatter;
 import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.material.button.MaterialButton;
@@ -11,11 +12,13 @@ import mindrift.app.music.App;
 import mindrift.app.music.R;
 import mindrift.app.music.core.cache.CacheEntry;
 import mindrift.app.music.core.cache.CacheManager;
+import mindrift.app.music.core.network.HttpEngine;
 
 public class CacheActivity extends AppCompatActivity {
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private CacheManager cacheManager;
     private TextView cacheSummaryText;
+    private TextView httpCacheSummaryText;
     private TextView cacheListText;
 
     @Override
@@ -27,14 +30,18 @@ public class CacheActivity extends AppCompatActivity {
         cacheManager = app.getCacheManager();
 
         cacheSummaryText = findViewById(R.id.text_cache_summary);
+        httpCacheSummaryText = findViewById(R.id.text_http_cache_summary);
         cacheListText = findViewById(R.id.text_cache_list);
         MaterialButton cacheRefreshButton = findViewById(R.id.button_cache_refresh);
         MaterialButton cacheClearButton = findViewById(R.id.button_cache_clear);
 
         cacheRefreshButton.setOnClickListener(v -> refreshData());
         cacheClearButton.setOnClickListener(v -> {
-            cacheManager.clear();
-            refreshData();
+            executor.execute(() -> {
+                cacheManager.clear();
+                HttpEngine.clearHttpCache();
+                refreshData();
+            });
         });
 
         refreshData();
@@ -56,9 +63,17 @@ public class CacheActivity extends AppCompatActivity {
         executor.execute(() -> {
             List<CacheEntry> entries = cacheManager.list();
             String summary = getString(R.string.cache_summary, entries.size());
+            HttpEngine.CacheStats stats = HttpEngine.cacheStats();
+            String httpSummary = getString(R.string.http_cache_summary,
+                    stats.hitCount,
+                    stats.networkCount,
+                    stats.requestCount,
+                    Formatter.formatShortFileSize(this, stats.sizeBytes),
+                    Formatter.formatShortFileSize(this, stats.maxSizeBytes));
             String cacheText = formatCacheList(entries);
             runOnUiThread(() -> {
                 cacheSummaryText.setText(summary);
+                httpCacheSummaryText.setText(httpSummary);
                 cacheListText.setText(cacheText);
             });
         });
@@ -3,6 +3,7 @@ package mindrift.app.music.ui;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.text.format.Formatter;
 import android.widget.ArrayAdapter;
 import android.widget.AutoCompleteTextView;
 import android.widget.TextView;
@@ -20,6 +21,8 @@ import java.util.concurrent.Executors;
 import mindrift.app.music.App;
 import mindrift.app.music.R;
 import mindrift.app.music.core.lyric.LyricService;
+import mindrift.app.music.core.proxy.CircuitBreaker;
+import mindrift.app.music.core.proxy.ProviderRanking;
 import mindrift.app.music.core.proxy.RequestProxy;
 import mindrift.app.music.core.search.SearchService;
 import mindrift.app.music.core.script.ScriptInfo;
@@ -28,16 +31,24 @@ import mindrift.app.music.core.script.SourceInfo;
 import mindrift.app.music.model.ResolveRequest;
 import mindrift.app.music.utils.PlatformUtils;
 import mindrift.app.music.utils.SettingsStore;
+import mindrift.app.music.wearable.XiaomiWearableManager;
 
 public class DiagnosticsActivity extends AppCompatActivity {
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private ScriptManager scriptManager;
     private RequestProxy requestProxy;
+    private XiaomiWearableManager wearableManager;
     private TextView testResultText;
     private TextView scriptCapabilitiesText;
     private AutoCompleteTextView scriptDropdown;
     private AutoCompleteTextView forcedScriptDropdown;
     private SwitchMaterial forcePollingSwitch;
+    private SwitchMaterial hedgedResolveSwitch;
+    private SwitchMaterial urlExpirySwitch;
+    private TextView providerHealthText;
+    private TextView providerRankingText;
+    private TextView scriptHeapText;
+    private TextView wearQueueText;
     private AutoCompleteTextView platformDropdown;
     private AutoCompleteTextView actionDropdown;
     private AutoCompleteTextView qualityDropdown;
@@ -63,12 +74,19 @@ public class DiagnosticsActivity extends AppCompatActivity {
         App app = (App) getApplication();
         scriptManager = app.getScriptManager();
         requestProxy = app.getRequestProxy();
+        wearableManager = app.getWearableManager();
 
         testResultText = findViewById(R.id.text_test_result);
         scriptCapabilitiesText = findViewById(R.id.text_script_capabilities);
         scriptDropdown = findViewById(R.id.dropdown_script);
         forcedScriptDropdown = findViewById(R.id.dropdown_forced_script);
         forcePollingSwitch = findViewById(R.id.switch_force_polling);
+        hedgedResolveSwitch = findViewById(R.id.switch_hedged_resolve);
+        urlExpirySwitch = findViewById(R.id.switch_url_expiry);
+        providerHealthText = findViewById(R.id.text_provider_health);
+        providerRankingText = findViewById(R.id.text_provider_ranking);
+        scriptHeapText = findViewById(R.id.text_script_heap);
+        wearQueueText = findViewById(R.id.text_wear_queue);
         platformDropdown = findViewById(R.id.dropdown_platform);
         actionDropdown = findViewById(R.id.dropdown_action);
         qualityDropdown = findViewById(R.id.dropdown_quality);
@@ -102,6 +120,10 @@ public class DiagnosticsActivity extends AppCompatActivity {
         });
         forcePollingSwitch.setChecked(SettingsStore.isForcePolling(this));
         forcePollingSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> SettingsStore.setForcePolling(this, isChecked));
+        hedgedResolveSwitch.setChecked(SettingsStore.isHedgedResolve(this));
+        hedgedResolveSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> SettingsStore.setHedgedResolve(this, isChecked));
+        urlExpirySwitch.setChecked(SettingsStore.isUrlExpiry(this));
+        urlExpirySwitch.setOnCheckedChangeListener((buttonView, isChecked) -> SettingsStore.setUrlExpiry(this, isChecked));
 
         setupDropdowns();
         refreshData();
@@ -124,13 +146,60 @@ public class DiagnosticsActivity extends AppCompatActivity {
     private void refreshData() {
         executor.execute(() -> {
             List<ScriptManager.ScriptEntry> loadedScripts = scriptManager.getLoadedScripts();
+            List<CircuitBreaker.Snapshot> circuits = scriptManager.getCircuitBreaker().snapshot();
+            List<ProviderRanking.Snapshot> rankings = scriptManager.getProviderRanking().snapshot();
+            List<ScriptManager.HeapSnapshot> heaps = scriptManager.getHeapSnapshot();
+            int wearQueueDepth = wearableManager == null ? 0 : wearableManager.getOutboundQueueDepth();
+            long wearSendMs = wearableManager == null ? 0 : wearableManager.getAverageSendMs();
             runOnUiThread(() -> {
                 updateScriptDropdown(loadedScripts);
                 updateForcedScriptDropdown(loadedScripts);
+                updateProviderHealth(circuits);
+                updateProviderRanking(rankings);
+                updateScriptHeap(heaps);
+                updateWearQueue(wearQueueDepth, wearSendMs);
             });
         });
     }
 
+    private void updateScriptHeap(List<ScriptManager.HeapSnapshot> heaps) {
+        if (scriptHeapText == null) return;
+        if (heaps == null || heaps.isEmpty()) {
+            scriptHeapText.setText(getString(R.string.script_heap_empty));
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (ScriptManager.HeapSnapshot heap : heaps) {
+            if (builder.length() > 0) builder.append('\n');
+            String label = resolveScriptLabel(heap.scriptId, scriptOptions);
+            builder.append(label == null ? heap.scriptId : label).append(": ");
+            if (heap.contexts == 0) {
+                builder.append(getString(R.string.script_heap_hibernated, heap.recycles));
+                appendWakeCost(builder, heap);
+                continue;
+            }
+            String used = heap.usedBytes > 0
+                    ? Formatter.formatShortFileSize(this, heap.usedBytes)
+                    : getString(R.string.script_heap_unknown);
+            String limit = heap.limitBytes > 0
+                    ? Formatter.formatShortFileSize(this, heap.limitBytes * heap.contexts)
+                    : getString(R.string.script_heap_unlimited);
+            builder.append(getString(R.string.script_heap_format, used, limit, heap.contexts, heap.recycles));
+            appendWakeCost(builder, heap);
+        }
+        scriptHeapText.setText(builder.toString());
+    }
+
+    private void appendWakeCost(StringBuilder builder, ScriptManager.HeapSnapshot heap) {
+        if (heap.wakes <= 0) return;
+        builder.append(getString(R.string.script_heap_wake, heap.wakes, heap.lastWakeMs));
+    }
+
+    private void updateWearQueue(int depth, long averageSendMs) {
+        if (wearQueueText == null) return;
+        wearQueueText.setText(getString(R.string.wear_queue_format, depth, averageSendMs));
+    }
+
     private void setupDropdowns() {
         actionOptions.clear();
         actionOptions.add(new ActionItem(getString(R.string.action_music_url), "musicUrl"));
@@ -267,6 +336,51 @@ public class DiagnosticsActivity extends AppCompatActivity {
         });
     }
 
+    private void updateProviderHealth(List<CircuitBreaker.Snapshot> circuits) {
+        if (providerHealthText == null) return;
+        if (circuits == null || circuits.isEmpty()) {
+            providerHealthText.setText(getString(R.string.provider_health_empty));
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (CircuitBreaker.Snapshot circuit : circuits) {
+            if (builder.length() > 0) builder.append('\n');
+            String label = resolveScriptLabel(circuit.scriptId, scriptOptions);
+            builder.append(label == null ? circuit.scriptId : label);
+            builder.append(" [").append(circuit.source).append("] ");
+            if (circuit.state == CircuitBreaker.State.OPEN) {
+                builder.append(getString(R.string.provider_health_open, (int) Math.ceil(circuit.remainingOpenMs / 1000.0)));
+            } else if (circuit.state == CircuitBreaker.State.HALF_OPEN) {
+                builder.append(getString(R.string.provider_health_half_open));
+            } else {
+                builder.append(getString(R.string.provider_health_closed));
+            }
+            builder.append(", ").append(getString(R.string.provider_health_failures, circuit.consecutiveFailures, (int) circuit.totalFailures));
+        }
+        providerHealthText.setText(builder.toString());
+    }
+
+    private void updateProviderRanking(List<ProviderRanking.Snapshot> rankings) {
+        if (providerRankingText == null) return;
+        if (rankings == null || rankings.isEmpty()) {
+            providerRankingText.setText(getString(R.string.provider_ranking_empty));
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (ProviderRanking.Snapshot ranking : rankings) {
+            if (builder.length() > 0) builder.append('\n');
+            String label = resolveScriptLabel(ranking.scriptId, scriptOptions);
+            builder.append(label == null ? ranking.scriptId : label);
+            builder.append(" [").append(ranking.source).append('/').append(ranking.action).append("] ");
+            builder.append(getString(R.string.provider_ranking_format,
+                    (int) Math.round(ranking.successRate * 100),
+                    (int) ranking.p50LatencyMs,
+                    ranking.samples,
+                    (int) ranking.expectedCostMs));
+        }
+        providerRankingText.setText(builder.toString());
+    }
+
     private void updateCapabilities(String scriptId) {
         if (scriptCapabilitiesText == null) return;
         if (scriptId == null || getString(R.string.no_scripts).equals(scriptId)) {
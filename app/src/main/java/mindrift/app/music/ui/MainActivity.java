@@ -24,7 +24,6 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import mindrift.app.music.App;
 import mindrift.app.music.R;
-import mindrift.app.music.core.cache.CacheEntry;
 import mindrift.app.music.core.cache.CacheManager;
 import mindrift.app.music.core.script.ScriptManager;
 import mindrift.app.music.utils.NotificationHelper;
@@ -80,8 +79,10 @@ public class MainActivity extends AppCompatActivity {
             refreshData();
         });
         clearCacheButton.setOnClickListener(v -> {
-            cacheManager.clear();
-            refreshData();
+            executor.execute(() -> {
+                cacheManager.clear();
+                refreshData();
+            });
         });
         uploadLauncher = registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::handleUploadFile);
         openThemeTransferButton.setOnClickListener(v -> startActivity(new Intent(this, ThemeTransferActivity.class)));
@@ -215,12 +216,12 @@ public class MainActivity extends AppCompatActivity {
 
     private void refreshData(String preferredScriptId) {
         executor.execute(() -> {
-            List<CacheEntry> entries = cacheManager.list();
+            int cacheCount = cacheManager.size();
             List<ScriptManager.ScriptEntry> loadedScripts = scriptManager.getLoadedScripts();
             String lastUpdated = getString(R.string.updated_at, DateFormat.getDateTimeInstance().format(new Date()));
             runOnUiThread(() -> {
                 scriptCountText.setText(String.valueOf(loadedScripts.size()));
-                cacheCountText.setText(String.valueOf(entries.size()));
+                cacheCountText.setText(String.valueOf(cacheCount));
                 lastUpdatedText.setText(lastUpdated);
                 updateDeviceStatus();
             });
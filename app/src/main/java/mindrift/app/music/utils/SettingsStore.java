@@ -7,6 +7,29 @@ public final class SettingsStore {
     private static final String PREFS_NAME = "lisync_prefs";
     private static final String KEY_FORCED_SCRIPT = "forced_script_id";
     private static final String KEY_FORCE_POLLING = "force_polling";
+    private static final String KEY_HEDGED_RESOLVE = "hedged_resolve";
+    private static final String KEY_URL_EXPIRY = "url_expiry";
+    private static final String KEY_HEDGE_DELAY_MS = "hedge_delay_ms";
+    private static final String KEY_HEDGE_FANOUT = "hedge_fanout";
+    private static final String KEY_BREAKER_FAILURE_THRESHOLD = "breaker_failure_threshold";
+    private static final String KEY_BREAKER_OPEN_MS = "breaker_open_ms";
+    private static final String KEY_SCRIPT_CONTEXT_POOL_SIZE = "script_context_pool_size";
+    private static final String KEY_HTTP_CACHE_SIZE_MB = "http_cache_size_mb";
+    private static final String KEY_SCRIPT_MEMORY_LIMIT_MB = "script_memory_limit_mb";
+    private static final String KEY_SCRIPT_STACK_KB = "script_stack_kb";
+    private static final String KEY_SCRIPT_GC_THRESHOLD_KB = "script_gc_threshold_kb";
+    private static final String KEY_SCRIPT_IDLE_MINUTES = "script_idle_minutes";
+    private static final long DEFAULT_HEDGE_DELAY_MS = 800L;
+    private static final int DEFAULT_HEDGE_FANOUT = 2;
+    private static final int DEFAULT_BREAKER_FAILURE_THRESHOLD = 3;
+    private static final long DEFAULT_BREAKER_OPEN_MS = 30000L;
+    private static final int DEFAULT_SCRIPT_CONTEXT_POOL_SIZE = 1;
+    private static final int MAX_SCRIPT_CONTEXT_POOL_SIZE = 4;
+    private static final int DEFAULT_HTTP_CACHE_SIZE_MB = 20;
+    private static final int DEFAULT_SCRIPT_MEMORY_LIMIT_MB = 32;
+    private static final int DEFAULT_SCRIPT_STACK_KB = 512;
+    private static final int DEFAULT_SCRIPT_GC_THRESHOLD_KB = 2048;
+    private static final int DEFAULT_SCRIPT_IDLE_MINUTES = 10;
 
     private SettingsStore() {}
 
@@ -34,4 +57,149 @@ public final class SettingsStore {
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         prefs.edit().putBoolean(KEY_FORCE_POLLING, enabled).apply();
     }
+
+    public static boolean isHedgedResolve(Context context) {
+        if (context == null) return false;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return prefs.getBoolean(KEY_HEDGED_RESOLVE, false);
+    }
+
+    public static void setHedgedResolve(Context context, boolean enabled) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putBoolean(KEY_HEDGED_RESOLVE, enabled).apply();
+    }
+
+    public static boolean isUrlExpiry(Context context) {
+        if (context == null) return true;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return prefs.getBoolean(KEY_URL_EXPIRY, true);
+    }
+
+    public static void setUrlExpiry(Context context, boolean enabled) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putBoolean(KEY_URL_EXPIRY, enabled).apply();
+    }
+
+    public static long getHedgeDelayMs(Context context) {
+        if (context == null) return DEFAULT_HEDGE_DELAY_MS;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return Math.max(0L, prefs.getLong(KEY_HEDGE_DELAY_MS, DEFAULT_HEDGE_DELAY_MS));
+    }
+
+    public static void setHedgeDelayMs(Context context, long delayMs) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putLong(KEY_HEDGE_DELAY_MS, Math.max(0L, delayMs)).apply();
+    }
+
+    public static int getHedgeFanout(Context context) {
+        if (context == null) return DEFAULT_HEDGE_FANOUT;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return Math.max(1, prefs.getInt(KEY_HEDGE_FANOUT, DEFAULT_HEDGE_FANOUT));
+    }
+
+    public static void setHedgeFanout(Context context, int fanout) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_HEDGE_FANOUT, Math.max(1, fanout)).apply();
+    }
+
+    public static int getBreakerFailureThreshold(Context context) {
+        if (context == null) return DEFAULT_BREAKER_FAILURE_THRESHOLD;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return Math.max(1, prefs.getInt(KEY_BREAKER_FAILURE_THRESHOLD, DEFAULT_BREAKER_FAILURE_THRESHOLD));
+    }
+
+    public static void setBreakerFailureThreshold(Context context, int threshold) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_BREAKER_FAILURE_THRESHOLD, Math.max(1, threshold)).apply();
+    }
+
+    public static long getBreakerOpenMs(Context context) {
+        if (context == null) return DEFAULT_BREAKER_OPEN_MS;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return Math.max(1000L, prefs.getLong(KEY_BREAKER_OPEN_MS, DEFAULT_BREAKER_OPEN_MS));
+    }
+
+    public static void setBreakerOpenMs(Context context, long openMs) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putLong(KEY_BREAKER_OPEN_MS, Math.max(1000L, openMs)).apply();
+    }
+
+    public static int getScriptContextPoolSize(Context context) {
+        if (context == null) return DEFAULT_SCRIPT_CONTEXT_POOL_SIZE;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        int size = prefs.getInt(KEY_SCRIPT_CONTEXT_POOL_SIZE, DEFAULT_SCRIPT_CONTEXT_POOL_SIZE);
+        return Math.max(1, Math.min(MAX_SCRIPT_CONTEXT_POOL_SIZE, size));
+    }
+
+    public static void setScriptContextPoolSize(Context context, int size) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_SCRIPT_CONTEXT_POOL_SIZE, Math.max(1, Math.min(MAX_SCRIPT_CONTEXT_POOL_SIZE, size))).apply();
+    }
+
+    public static int getHttpCacheSizeMb(Context context) {
+        if (context == null) return DEFAULT_HTTP_CACHE_SIZE_MB;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return Math.max(0, prefs.getInt(KEY_HTTP_CACHE_SIZE_MB, DEFAULT_HTTP_CACHE_SIZE_MB));
+    }
+
+    public static void setHttpCacheSizeMb(Context context, int sizeMb) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_HTTP_CACHE_SIZE_MB, Math.max(0, sizeMb)).apply();
+    }
+
+    public static int getScriptMemoryLimitMb(Context context) {
+        if (context == null) return DEFAULT_SCRIPT_MEMORY_LIMIT_MB;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return Math.max(0, Math.min(1024, prefs.getInt(KEY_SCRIPT_MEMORY_LIMIT_MB, DEFAULT_SCRIPT_MEMORY_LIMIT_MB)));
+    }
+
+    public static void setScriptMemoryLimitMb(Context context, int limitMb) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_SCRIPT_MEMORY_LIMIT_MB, Math.max(0, Math.min(1024, limitMb))).apply();
+    }
+
+    public static int getScriptStackKb(Context context) {
+        if (context == null) return DEFAULT_SCRIPT_STACK_KB;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return Math.max(0, Math.min(8192, prefs.getInt(KEY_SCRIPT_STACK_KB, DEFAULT_SCRIPT_STACK_KB)));
+    }
+
+    public static void setScriptStackKb(Context context, int stackKb) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_SCRIPT_STACK_KB, Math.max(0, Math.min(8192, stackKb))).apply();
+    }
+
+    public static int getScriptGcThresholdKb(Context context) {
+        if (context == null) return DEFAULT_SCRIPT_GC_THRESHOLD_KB;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return Math.max(0, prefs.getInt(KEY_SCRIPT_GC_THRESHOLD_KB, DEFAULT_SCRIPT_GC_THRESHOLD_KB));
+    }
+
+    public static void setScriptGcThresholdKb(Context context, int thresholdKb) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_SCRIPT_GC_THRESHOLD_KB, Math.max(0, thresholdKb)).apply();
+    }
+
+    public static int getScriptIdleMinutes(Context context) {
+        if (context == null) return DEFAULT_SCRIPT_IDLE_MINUTES;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return Math.max(0, prefs.getInt(KEY_SCRIPT_IDLE_MINUTES, DEFAULT_SCRIPT_IDLE_MINUTES));
+    }
+
+    public static void setScriptIdleMinutes(Context context, int minutes) {
+        if (context == null) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_SCRIPT_IDLE_MINUTES, Math.max(0, minutes)).apply();
+    }
 }
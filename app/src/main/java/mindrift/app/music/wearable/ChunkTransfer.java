@@ -0,0 +1,256 @@
+package mindrift.app.music.wearable;
+
+import android.os.SystemClock;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import mindrift.app.music.utils.Logger;
+
+class ChunkTransfer {
+    interface Channel {
+        byte[] read(int index) throws IOException;
+        void send(int index, int total, byte[] chunk, Runnable onSent);
+        boolean isAborted();
+        void onProgress(int ackedChunks, long ackedBytes);
+    }
+
+    private static final int INITIAL_WINDOW = 4;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long INITIAL_RTO_MS = 5000L;
+    private static final long MIN_RTO_MS = 1000L;
+    private static final long MAX_RTO_MS = 15000L;
+
+    private final String label;
+    private final int total;
+    private final boolean acked;
+    private final int maxWindow;
+    private final Channel channel;
+    private final Object lock = new Object();
+    private final Map<Integer, Pending> outstanding = new LinkedHashMap<>();
+    private final ArrayDeque<Integer> retransmits = new ArrayDeque<>();
+    private int nextIndex = 1;
+    private int ackedChunks;
+    private long ackedBytes;
+    private int window;
+    private int ackedSinceGrow;
+    private long srttMs;
+    private long rtoMs = INITIAL_RTO_MS;
+    private long lastLossAt;
+    private int retransmitCount;
+    private String failure;
+
+    ChunkTransfer(String label, int total, boolean acked, int maxWindow, Channel channel) {
+        this.label = label;
+        this.total = Math.max(1, total);
+        this.acked = acked;
+        this.maxWindow = Math.max(1, maxWindow);
+        this.window = Math.min(INITIAL_WINDOW, this.maxWindow);
+        this.channel = channel;
+    }
+
+    boolean run() throws IOException {
+        long startedAt = SystemClock.elapsedRealtime();
+        int reportedChunks = -1;
+        while (true) {
+            int index;
+            byte[] data;
+            Pending sending = null;
+            int progressChunks;
+            long progressBytes;
+            synchronized (lock) {
+                progressChunks = ackedChunks;
+                progressBytes = ackedBytes;
+            }
+            if (progressChunks != reportedChunks) {
+                reportedChunks = progressChunks;
+                channel.onProgress(progressChunks, progressBytes);
+            }
+            synchronized (lock) {
+                if (channel.isAborted()) {
+                    return false;
+                }
+                if (ackedChunks >= total) {
+                    Logger.info("Chunk transfer done: " + label + " chunks=" + total + " window=" + window
+                            + " retransmits=" + retransmitCount + " costMs=" + (SystemClock.elapsedRealtime() - startedAt));
+                    return true;
+                }
+                long now = SystemClock.elapsedRealtime();
+                if (!expireOutstanding(now)) {
+                    return false;
+                }
+                Integer retry = retransmits.pollFirst();
+                if (retry != null) {
+                    Pending pending = outstanding.get(retry);
+                    if (pending == null) continue;
+                    pending.attempts++;
+                    pending.sentAt = 0L;
+                    pending.retransmitted = true;
+                    retransmitCount++;
+                    index = retry;
+                    data = pending.data;
+                    sending = pending;
+                } else if (nextIndex <= total && outstanding.size() < window) {
+                    index = nextIndex++;
+                    data = null;
+                } else {
+                    try {
+                        lock.wait(nextWaitMs(now));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                    continue;
+                }
+            }
+            if (data == null) {
+                data = channel.read(index);
+                if (data == null) data = new byte[0];
+                if (!acked) {
+                    channel.send(index, total, data, null);
+                    synchronized (lock) {
+                        ackedChunks++;
+                        ackedBytes += data.length;
+                    }
+                    continue;
+                }
+                sending = new Pending(data);
+                synchronized (lock) {
+                    outstanding.put(index, sending);
+                }
+            }
+            Pending sent = sending;
+            int attempt = sending.attempts;
+            channel.send(index, total, data, () -> markSent(sent, attempt));
+        }
+    }
+
+    void onAck(int index) {
+        synchronized (lock) {
+            if (complete(index)) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    void onCumulativeAck(int upTo) {
+        synchronized (lock) {
+            boolean changed = false;
+            Iterator<Integer> it = outstanding.keySet().iterator();
+            while (it.hasNext()) {
+                int index = it.next();
+                if (index > upTo) continue;
+                Pending pending = outstanding.get(index);
+                it.remove();
+                changed |= acknowledge(index, pending);
+            }
+            if (changed) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    void onMissing(int[] indices) {
+        if (indices == null || indices.length == 0) return;
+        synchronized (lock) {
+            boolean queued = false;
+            for (int index : indices) {
+                if (outstanding.containsKey(index) && !retransmits.contains(index)) {
+                    retransmits.addLast(index);
+                    queued = true;
+                }
+            }
+            if (queued) {
+                shrinkWindow(SystemClock.elapsedRealtime());
+                lock.notifyAll();
+            }
+        }
+    }
+
+    long getAckedBytes() {
+        synchronized (lock) {
+            return ackedBytes;
+        }
+    }
+
+    String getFailure() {
+        synchronized (lock) {
+            return failure;
+        }
+    }
+
+    private void markSent(Pending pending, int attempt) {
+        synchronized (lock) {
+            if (pending.attempts == attempt && pending.sentAt == 0L) {
+                pending.sentAt = SystemClock.elapsedRealtime();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private boolean complete(int index) {
+        Pending pending = outstanding.remove(index);
+        return pending != null && acknowledge(index, pending);
+    }
+
+    private boolean acknowledge(int index, Pending pending) {
+        if (pending == null) return false;
+        retransmits.remove(index);
+        ackedChunks++;
+        ackedBytes += pending.data.length;
+        if (!pending.retransmitted && pending.sentAt > 0) {
+            long sample = Math.max(1L, SystemClock.elapsedRealtime() - pending.sentAt);
+            srttMs = srttMs == 0 ? sample : (srttMs * 7 + sample) / 8;
+            rtoMs = Math.max(MIN_RTO_MS, Math.min(MAX_RTO_MS, srttMs * 4));
+        }
+        if (++ackedSinceGrow >= window) {
+            ackedSinceGrow = 0;
+            window = Math.min(maxWindow, window + 1);
+        }
+        return true;
+    }
+
+    private boolean expireOutstanding(long now) {
+        for (Map.Entry<Integer, Pending> entry : outstanding.entrySet()) {
+            Pending pending = entry.getValue();
+            if (pending.sentAt == 0L || now - pending.sentAt < rtoMs || retransmits.contains(entry.getKey())) continue;
+            if (pending.attempts >= MAX_ATTEMPTS) {
+                failure = "chunk " + entry.getKey() + " not acknowledged";
+                Logger.warn("Chunk transfer failed: " + label + " index=" + entry.getKey() + " attempts=" + pending.attempts);
+                return false;
+            }
+            retransmits.addLast(entry.getKey());
+            shrinkWindow(now);
+        }
+        return true;
+    }
+
+    private void shrinkWindow(long now) {
+        if (now - lastLossAt < rtoMs) return;
+        lastLossAt = now;
+        window = Math.max(1, window / 2);
+        ackedSinceGrow = 0;
+        Logger.warn("Chunk transfer loss: " + label + " window=" + window + " rtoMs=" + rtoMs);
+    }
+
+    private long nextWaitMs(long now) {
+        long wait = rtoMs;
+        for (Pending pending : outstanding.values()) {
+            if (pending.sentAt == 0L) continue;
+            wait = Math.min(wait, pending.sentAt + rtoMs - now);
+        }
+        return Math.max(10L, wait);
+    }
+
+    private static class Pending {
+        final byte[] data;
+        long sentAt;
+        int attempts = 1;
+        boolean retransmitted;
+
+        Pending(byte[] data) {
+            this.data = data;
+        }
+    }
+}
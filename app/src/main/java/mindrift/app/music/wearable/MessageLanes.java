@@ -0,0 +1,64 @@
+package mindrift.app.music.wearable;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import mindrift.app.music.utils.Logger;
+
+class MessageLanes {
+    enum Lane {
+        CONTROL("wear-control", 1, 256),
+        RESOLVE("wear-resolve", 2, 64),
+        BULK("wear-bulk", 2, 16);
+
+        final String name;
+        final int workers;
+        final int capacity;
+
+        Lane(String name, int workers, int capacity) {
+            this.name = name;
+            this.workers = workers;
+            this.capacity = capacity;
+        }
+    }
+
+    private final ThreadPoolExecutor[] executors = new ThreadPoolExecutor[Lane.values().length];
+
+    MessageLanes() {
+        for (Lane lane : Lane.values()) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(lane.workers, lane.workers, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(lane.capacity),
+                    r -> new Thread(r, lane.name + "-" + threadIndex.incrementAndGet()));
+            executor.allowCoreThreadTimeOut(true);
+            executors[lane.ordinal()] = executor;
+        }
+    }
+
+    boolean submit(Lane lane, Runnable task) {
+        ThreadPoolExecutor executor = executors[lane.ordinal()];
+        if (executor.isShutdown()) {
+            Logger.warn("Message ignored: " + lane.name + " lane shutdown");
+            return false;
+        }
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            Logger.warn("Message rejected: " + lane.name + " lane full (" + executor.getQueue().size() + ")");
+            return false;
+        }
+    }
+
+    boolean isShutdown() {
+        return executors[Lane.CONTROL.ordinal()].isShutdown();
+    }
+
+    void shutdown() {
+        for (ThreadPoolExecutor executor : executors) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package mindrift.app.music.wearable;
+
+import android.os.SystemClock;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import mindrift.app.music.utils.Logger;
+
+class OutboundQueue {
+    interface Transport {
+        void send(String nodeId, byte[] data, Completion completion);
+    }
+
+    interface Completion {
+        void onComplete(Exception error);
+    }
+
+    private static final int MAX_IN_FLIGHT = 1;
+    static final int BULK_CAPACITY = 8;
+    private static final int MAX_BATCH_ITEM_BYTES = 1024;
+    private static final int MAX_BATCH_BYTES = 8 * 1024;
+    private static final long SEND_TIMEOUT_MS = 10000;
+    private static final long BULK_WAIT_MS = 15000;
+    private static final byte[] BATCH_PREFIX = "{\"action\":\"batch\",\"items\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BATCH_SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private final Transport transport;
+    private final Map<String, NodeQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor worker = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "wear-outbound");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    OutboundQueue(Transport transport) {
+        this.transport = transport;
+        worker.setRemoveOnCancelPolicy(true);
+    }
+
+    void send(String nodeId, byte[] data) {
+        NodeQueue queue = queueFor(nodeId);
+        synchronized (queue) {
+            queue.priority.addLast(data);
+        }
+        schedulePump(queue);
+    }
+
+    void sendBulk(String nodeId, byte[] data) {
+        sendBulk(nodeId, data, null);
+    }
+
+    void sendBulk(String nodeId, byte[] data, Runnable onSent) {
+        NodeQueue queue = queueFor(nodeId);
+        synchronized (queue) {
+            long deadline = SystemClock.elapsedRealtime() + BULK_WAIT_MS;
+            while (queue.bulk.size() >= BULK_CAPACITY) {
+                long remaining = deadline - SystemClock.elapsedRealtime();
+                if (remaining <= 0) {
+                    Logger.warn("Outbound queue still full for node " + nodeId + ", depth=" + queue.bulk.size());
+                    break;
+                }
+                try {
+                    queue.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            queue.bulk.addLast(new BulkItem(data, onSent));
+        }
+        schedulePump(queue);
+    }
+
+    void dropBulk(String nodeId) {
+        NodeQueue queue = queues.get(nodeId);
+        if (queue == null) return;
+        List<Runnable> dropped;
+        synchronized (queue) {
+            if (!queue.bulk.isEmpty()) {
+                Logger.warn("Outbound queue dropped " + queue.bulk.size() + " bulk message(s) for node " + nodeId);
+            }
+            dropped = drainBulk(queue);
+        }
+        runAll(dropped);
+    }
+
+    void setBatching(String nodeId, boolean enabled) {
+        NodeQueue queue = queueFor(nodeId);
+        synchronized (queue) {
+            queue.batching = enabled;
+        }
+    }
+
+    int depth() {
+        int depth = 0;
+        for (NodeQueue queue : queues.values()) {
+            synchronized (queue) {
+                depth += queue.priority.size() + queue.bulk.size() + queue.inFlight;
+            }
+        }
+        return depth;
+    }
+
+    long averageSendMs() {
+        long total = 0;
+        int count = 0;
+        for (NodeQueue queue : queues.values()) {
+            synchronized (queue) {
+                if (queue.avgSendMs > 0) {
+                    total += queue.avgSendMs;
+                    count++;
+                }
+            }
+        }
+        return count == 0 ? 0 : total / count;
+    }
+
+    void clear() {
+        List<Runnable> callbacks = new ArrayList<>();
+        for (NodeQueue queue : queues.values()) {
+            synchronized (queue) {
+                int dropped = queue.priority.size() + queue.bulk.size();
+                if (dropped > 0) {
+                    Logger.warn("Outbound queue dropped " + dropped + " message(s) for node " + queue.nodeId);
+                }
+                queue.priority.clear();
+                callbacks.addAll(drainBulk(queue));
+                queue.batching = false;
+                queue.notifyAll();
+            }
+        }
+        runAll(callbacks);
+    }
+
+    void shutdown() {
+        clear();
+        worker.shutdownNow();
+    }
+
+    private List<Runnable> drainBulk(NodeQueue queue) {
+        List<Runnable> callbacks = new ArrayList<>();
+        for (BulkItem item : queue.bulk) {
+            if (item.onSent != null) {
+                callbacks.add(item.onSent);
+            }
+        }
+        queue.bulk.clear();
+        queue.notifyAll();
+        return callbacks;
+    }
+
+    private void runAll(List<Runnable> callbacks) {
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    private NodeQueue queueFor(String nodeId) {
+        return queues.computeIfAbsent(nodeId, NodeQueue::new);
+    }
+
+    private void schedulePump(NodeQueue queue) {
+        synchronized (queue) {
+            if (queue.pumpScheduled) return;
+            queue.pumpScheduled = true;
+        }
+        try {
+            worker.execute(() -> {
+                synchronized (queue) {
+                    queue.pumpScheduled = false;
+                }
+                pump(queue);
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (queue) {
+                queue.pumpScheduled = false;
+            }
+        }
+    }
+
+    private void pump(NodeQueue queue) {
+        while (true) {
+            byte[] data;
+            Runnable onSent = null;
+            synchronized (queue) {
+                if (queue.inFlight >= MAX_IN_FLIGHT) return;
+                if (!queue.priority.isEmpty()) {
+                    data = queue.batching ? pollBatch(queue.priority, queue.nodeId) : queue.priority.pollFirst();
+                } else if (!queue.bulk.isEmpty()) {
+                    BulkItem item = queue.bulk.pollFirst();
+                    data = item.data;
+                    onSent = item.onSent;
+                } else {
+                    return;
+                }
+                queue.inFlight++;
+                queue.notifyAll();
+            }
+            dispatch(queue, data, onSent);
+        }
+    }
+
+    private byte[] pollBatch(ArrayDeque<byte[]> pending, String nodeId) {
+        List<byte[]> items = new ArrayList<>();
+        int size = BATCH_PREFIX.length + BATCH_SUFFIX.length;
+        while (!pending.isEmpty()) {
+            byte[] next = pending.peekFirst();
+            if (next.length > MAX_BATCH_ITEM_BYTES || size + next.length + 1 > MAX_BATCH_BYTES) break;
+            items.add(pending.pollFirst());
+            size += next.length + 1;
+        }
+        if (items.isEmpty()) return pending.pollFirst();
+        if (items.size() == 1) return items.get(0);
+        byte[] batch = new byte[size - 1];
+        int offset = 0;
+        System.arraycopy(BATCH_PREFIX, 0, batch, offset, BATCH_PREFIX.length);
+        offset += BATCH_PREFIX.length;
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) batch[offset++] = ',';
+            byte[] item = items.get(i);
+            System.arraycopy(item, 0, batch, offset, item.length);
+            offset += item.length;
+        }
+        System.arraycopy(BATCH_SUFFIX, 0, batch, offset, BATCH_SUFFIX.length);
+        Logger.debug("Outbound batch: node=" + nodeId + " items=" + items.size() + " bytes=" + batch.length);
+        return batch;
+    }
+
+    private void dispatch(NodeQueue queue, byte[] data, Runnable onSent) {
+        long startedAt = SystemClock.elapsedRealtime();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<ScheduledFuture<?>> timeout = new AtomicReference<>();
+        Completion completion = error -> {
+            if (!done.compareAndSet(false, true)) return;
+            ScheduledFuture<?> pendingTimeout = timeout.getAndSet(null);
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel(false);
+            }
+            if (error != null) {
+                Logger.error("Send message failed: " + error.getMessage(), error);
+            }
+            if (onSent != null) {
+                onSent.run();
+            }
+            onSent(queue, SystemClock.elapsedRealtime() - startedAt);
+        };
+        try {
+            timeout.set(worker.schedule(() -> completion.onComplete(new Exception("send timeout")),
+                    SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        } catch (RejectedExecutionException ignored) {
+        }
+        try {
+            transport.send(queue.nodeId, data, completion);
+        } catch (Exception e) {
+            completion.onComplete(e);
+        }
+    }
+
+    private void onSent(NodeQueue queue, long elapsedMs) {
+        synchronized (queue) {
+            queue.inFlight = Math.max(0, queue.inFlight - 1);
+            queue.avgSendMs = queue.avgSendMs == 0 ? elapsedMs : (queue.avgSendMs * 7 + elapsedMs) / 8;
+            queue.notifyAll();
+        }
+        schedulePump(queue);
+    }
+
+    private static class NodeQueue {
+        final String nodeId;
+        final ArrayDeque<byte[]> priority = new ArrayDeque<>();
+        final ArrayDeque<BulkItem> bulk = new ArrayDeque<>();
+        int inFlight;
+        long avgSendMs;
+        boolean batching;
+        boolean pumpScheduled;
+
+        NodeQueue(String nodeId) {
+            this.nodeId = nodeId;
+        }
+    }
+
+    private static class BulkItem {
+        final byte[] data;
+        final Runnable onSent;
+
+        BulkItem(byte[] data, Runnable onSent) {
+            this.data = data;
+            this.onSent = onSent;
+        }
+    }
+}
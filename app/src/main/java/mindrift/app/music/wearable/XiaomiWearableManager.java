@@ -26,6 +26,7 @@ import android.content.pm.PackageInfo;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -34,6 +35,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -42,6 +44,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import mindrift.app.music.core.lyric.LyricService;
+import mindrift.app.music.core.network.HttpEngine;
 import mindrift.app.music.core.script.ScriptManager;
 import mindrift.app.music.core.search.SearchService;
 import mindrift.app.music.core.proxy.RequestProxy;
@@ -71,6 +74,7 @@ public class XiaomiWearableManager {
     private static final String ACTION_THEME_FILE_START = "theme.file.start";
     private static final String ACTION_THEME_FILE_CHUNK = "theme.file.chunk";
     private static final String ACTION_THEME_FILE_FINISH = "theme.file.finish";
+    private static final String ACTION_THEME_FILE_CHUNK_ACK = "theme.file.chunk.ack";
     private static final String ACTION_THEME_FINISH = "theme.finish";
     private static final String ACTION_THEME_CANCEL = "theme.cancel";
     private static final long MAX_UPLOAD_SIZE = 5 * 1024 * 1024L;
@@ -81,6 +85,8 @@ public class XiaomiWearableManager {
     private static final long THEME_FINISH_DELAY_MS = 100L;
     private static final int THEME_FINISH_RETRY_COUNT = 1;
     private static final long THEME_FINISH_RETRY_DELAY_MS = 200L;
+    private static final String FEATURE_BATCH = "batch";
+    private static final String FEATURE_CHUNK_ACK = "chunkAck";
     private static final Pattern THEME_ID_PATTERN = Pattern.compile("^[a-z0-9_-]{1,32}$");
     private static final Permission[] REQUIRED_PERMISSIONS = new Permission[]{
             Permission.DEVICE_MANAGER,
@@ -95,7 +101,11 @@ public class XiaomiWearableManager {
     private final MessageApi messageApi;
     private final AuthApi authApi;
     private final ServiceApi serviceApi;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final MessageLanes messageLanes = new MessageLanes();
+    private final OutboundQueue outboundQueue = new OutboundQueue((nodeId, data, completion) ->
+            messageApi.sendMessage(nodeId, data)
+                    .addOnSuccessListener(v -> completion.onComplete(null))
+                    .addOnFailureListener(completion::onComplete));
     private final ExecutorService uploadExecutor = Executors.newSingleThreadExecutor();
     private final ScheduledExecutorService uploadScheduler = Executors.newSingleThreadScheduledExecutor();
     private final Gson gson = new Gson();
@@ -120,6 +130,7 @@ public class XiaomiWearableManager {
     private static final long MIN_REFRESH_INTERVAL_MS = 3000L;
     private ScheduledFuture<?> reconnectFuture;
     private final Map<String, UploadSession> uploadSessions = new ConcurrentHashMap<>();
+    private final Set<String> chunkAckNodes = ConcurrentHashMap.newKeySet();
     private final Map<String, ThemeTransferSession> themeRequestMap = new ConcurrentHashMap<>();
     private final Object themeLock = new Object();
     private volatile ThemeTransferSession activeThemeSession;
@@ -240,7 +251,8 @@ public class XiaomiWearableManager {
         clearThemeSessions();
         searchService.shutdown();
         lyricService.shutdown();
-        executor.shutdownNow();
+        messageLanes.shutdown();
+        outboundQueue.shutdown();
         uploadExecutor.shutdownNow();
         uploadScheduler.shutdownNow();
     }
@@ -387,80 +399,144 @@ public class XiaomiWearableManager {
     }
 
     private void handleIncomingMessage(String nodeId, byte[] message) {
-        if (executor.isShutdown()) {
+        if (messageLanes.isShutdown()) {
             Logger.warn("Message ignored: executor shutdown");
             return;
         }
-        executor.execute(() -> {
-            String payload = new String(message, StandardCharsets.UTF_8);
-            Logger.info("Received message from node " + nodeId + " bytes=" + payload.length());
-            JsonObject json = null;
-            try {
-                json = gson.fromJson(payload, JsonObject.class);
-            } catch (Exception e) {
-                Logger.warn("Parse message failed: " + e.getMessage());
-            }
-            String requestId = getString(json, "_requestId");
-            String action = getString(json, "action");
-            if ((action != null && !action.isEmpty()) || (requestId != null && !requestId.isEmpty())) {
-                Logger.info("Message action=" + action + " requestId=" + requestId);
-            }
-            if (isCapabilitiesRequest(json)) {
-                sendCapabilities(nodeId, false, requestId);
-                return;
-            }
-            if (ACTION_WATCH_READY.equalsIgnoreCase(action)) {
-                handleWatchReady(nodeId, json, requestId);
-                return;
-            }
-            if (ACTION_LOG_UPLOAD.equalsIgnoreCase(action)) {
-                handleLogUpload(nodeId, json, requestId);
-                return;
-            }
-            if (isUploadAction(action)) {
-                handleUploadResponse(action, json, requestId);
-                return;
-            }
-            if (isThemeAction(action)) {
-                handleThemeResponse(action, json, requestId);
-                return;
-            }
-            if (ACTION_SEARCH.equalsIgnoreCase(action)) {
-                handleSearch(nodeId, json, requestId);
-                return;
-            }
-            if (ACTION_LYRIC.equalsIgnoreCase(action) || ACTION_GET_LYRIC.equalsIgnoreCase(action)) {
-                handleLyric(nodeId, json, requestId);
-                return;
-            }
-            ResolveRequest request;
-            try {
-                request = gson.fromJson(payload, ResolveRequest.class);
-            } catch (Exception e) {
-                sendMessage(nodeId, gson.toJson(new ErrorResponse("Invalid request", null, requestId)));
-                notifyRequestError("请求解析失败", "来自手表的请求格式不正确");
-                return;
+        if (!messageLanes.submit(MessageLanes.Lane.CONTROL, () -> routeMessage(nodeId, message))) {
+            replyBusy(nodeId, message);
+        }
+    }
+
+    private void replyBusy(String nodeId, byte[] message) {
+        JsonObject json = null;
+        try {
+            json = gson.fromJson(new String(message, StandardCharsets.UTF_8), JsonObject.class);
+        } catch (Exception e) {
+            Logger.warn("Parse rejected message failed: " + e.getMessage());
+        }
+        String requestId = getString(json, "_requestId");
+        String action = getString(json, "action");
+        if (isUploadAction(action) || isThemeAction(action) || ACTION_THEME_FILE_CHUNK_ACK.equalsIgnoreCase(action)) {
+            return;
+        }
+        if (action == null || action.isEmpty()) {
+            sendMessage(nodeId, gson.toJson(new ErrorResponse("Busy", null, requestId)));
+        } else {
+            sendMessage(nodeId, gson.toJson(buildErrorPayload(action, "Busy", requestId)));
+        }
+    }
+
+    private void routeMessage(String nodeId, byte[] message) {
+        String payload = new String(message, StandardCharsets.UTF_8);
+        Logger.info("Received message from node " + nodeId + " bytes=" + payload.length());
+        JsonObject json = null;
+        try {
+            json = gson.fromJson(payload, JsonObject.class);
+        } catch (Exception e) {
+            Logger.warn("Parse message failed: " + e.getMessage());
+        }
+        String requestId = getString(json, "_requestId");
+        String action = getString(json, "action");
+        if ((action != null && !action.isEmpty()) || (requestId != null && !requestId.isEmpty())) {
+            Logger.info("Message action=" + action + " requestId=" + requestId);
+        }
+        if (isCapabilitiesRequest(json)) {
+            sendCapabilities(nodeId, false, requestId);
+            return;
+        }
+        if (ACTION_WATCH_READY.equalsIgnoreCase(action)) {
+            handleWatchReady(nodeId, json, requestId);
+            return;
+        }
+        if (isUploadAction(action)) {
+            handleUploadResponse(action, json, requestId);
+            return;
+        }
+        if (ACTION_THEME_FILE_CHUNK_ACK.equalsIgnoreCase(action)) {
+            handleThemeChunkAck(json);
+            return;
+        }
+        if (isThemeAction(action)) {
+            handleThemeResponse(action, json, requestId);
+            return;
+        }
+        JsonObject parsed = json;
+        if (ACTION_LOG_UPLOAD.equalsIgnoreCase(action)) {
+            submitBulk(nodeId, ACTION_LOG_UPLOAD_RESULT, requestId, () -> handleLogUpload(nodeId, parsed, requestId));
+            return;
+        }
+        if (ACTION_SEARCH.equalsIgnoreCase(action)) {
+            submitBulk(nodeId, ACTION_SEARCH, requestId, () -> handleSearch(nodeId, parsed, requestId));
+            return;
+        }
+        if (ACTION_LYRIC.equalsIgnoreCase(action) || ACTION_GET_LYRIC.equalsIgnoreCase(action)) {
+            submitBulk(nodeId, ACTION_LYRIC, requestId, () -> handleLyric(nodeId, parsed, requestId));
+            return;
+        }
+        if (!messageLanes.submit(MessageLanes.Lane.RESOLVE, () -> handleResolve(nodeId, payload, requestId))) {
+            sendMessage(nodeId, gson.toJson(new ErrorResponse("Busy", null, requestId)));
+        }
+    }
+
+    private void submitBulk(String nodeId, String action, String requestId, Runnable task) {
+        if (!messageLanes.submit(MessageLanes.Lane.BULK, task)) {
+            sendMessage(nodeId, gson.toJson(buildErrorPayload(action, "Busy", requestId)));
+        }
+    }
+
+    private void handleResolve(String nodeId, String payload, String requestId) {
+        ResolveRequest request;
+        try {
+            request = gson.fromJson(payload, ResolveRequest.class);
+        } catch (Exception e) {
+            sendMessage(nodeId, gson.toJson(new ErrorResponse("Invalid request", null, requestId)));
+            notifyRequestError("请求解析失败", "来自手表的请求格式不正确");
+            return;
+        }
+        requestProxy.resolve(request, new RequestProxy.ResolveCallback() {
+            @Override
+            public void onSuccess(byte[] response) {
+                sendBytes(nodeId, withRequestId(response, requestId), requestId);
             }
-            requestProxy.resolve(request, new RequestProxy.ResolveCallback() {
-                @Override
-                public void onSuccess(String responseJson) {
-                    sendMessage(nodeId, withRequestId(responseJson, requestId));
-                }
 
-                @Override
-                public void onFailure(Exception e) {
-                    sendMessage(nodeId, gson.toJson(new ErrorResponse(e.getMessage(), request, requestId)));
-                    notifyRequestError("请求失败", buildRequestErrorMessage(request, e));
-                }
-            });
+            @Override
+            public void onFailure(Exception e) {
+                sendMessage(nodeId, gson.toJson(new ErrorResponse(e.getMessage(), request, requestId)));
+                notifyRequestError("请求失败", buildRequestErrorMessage(request, e));
+            }
         });
     }
 
     private void sendMessage(String nodeId, String json) {
         byte[] data = json.getBytes(StandardCharsets.UTF_8);
         logOutgoingMessage(nodeId, json, data.length);
-        messageApi.sendMessage(nodeId, data)
-                .addOnFailureListener(e -> Logger.error("Send message failed: " + e.getMessage(), e));
+        outboundQueue.send(nodeId, data);
+    }
+
+    private void sendBulkMessage(String nodeId, String json) {
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        logOutgoingMessage(nodeId, json, data.length);
+        outboundQueue.sendBulk(nodeId, data);
+    }
+
+    private void sendBulkMessage(String nodeId, String json, Runnable onSent) {
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        logOutgoingMessage(nodeId, json, data.length);
+        outboundQueue.sendBulk(nodeId, data, onSent);
+    }
+
+    private void sendBytes(String nodeId, byte[] data, String requestId) {
+        Logger.info("Send message to node " + nodeId + ", bytes=" + data.length + " requestId=" + requestId);
+        outboundQueue.send(nodeId, data);
+    }
+
+    public int getOutboundQueueDepth() {
+        return outboundQueue.depth();
+    }
+
+    public long getAverageSendMs() {
+        return outboundQueue.averageSendMs();
     }
 
     private void sendCapabilities(String nodeId, boolean update, String requestId) {
@@ -605,6 +681,17 @@ public class XiaomiWearableManager {
         } else {
             Logger.info("Watch ready received: node=" + nodeId + " watchVersion=" + watchVersion.trim());
         }
+        boolean batching = hasFeature(json, FEATURE_BATCH) || hasFeature(watch, FEATURE_BATCH);
+        outboundQueue.setBatching(nodeId, batching);
+        if (batching) {
+            Logger.info("Watch accepts batched messages: node=" + nodeId);
+        }
+        if (hasFeature(json, FEATURE_CHUNK_ACK) || hasFeature(watch, FEATURE_CHUNK_ACK)) {
+            chunkAckNodes.add(nodeId);
+            Logger.info("Watch acknowledges chunks, windowed transfer enabled: node=" + nodeId);
+        } else {
+            chunkAckNodes.remove(nodeId);
+        }
         Map<String, Object> ack = new HashMap<>();
         ack.put("action", ACTION_WATCH_READY_ACK);
         ack.put("code", 0);
@@ -863,6 +950,8 @@ public class XiaomiWearableManager {
         queryInProgress = false;
         lastDetailQueryFailedAt = 0L;
         optionalSubscribeDisabled = false;
+        outboundQueue.clear();
+        chunkAckNodes.clear();
         Logger.info("Wearable node state cleared");
     }
 
@@ -899,6 +988,16 @@ public class XiaomiWearableManager {
         return false;
     }
 
+    private boolean hasFeature(JsonObject json, String feature) {
+        if (json == null || !json.has("features") || !json.get("features").isJsonArray()) return false;
+        for (JsonElement element : json.getAsJsonArray("features")) {
+            if (element != null && element.isJsonPrimitive() && feature.equalsIgnoreCase(element.getAsString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean isCapabilityAction(String value) {
         if (value == null) return false;
         return ACTION_GET_CAPABILITIES.equalsIgnoreCase(value)
@@ -917,6 +1016,20 @@ public class XiaomiWearableManager {
         return lower.startsWith("theme.") && lower.endsWith(".result");
     }
 
+    private byte[] withRequestId(byte[] response, String requestId) {
+        if (requestId == null || requestId.isEmpty()) return response;
+        if (response == null || response.length < 2 || response[0] != '{') {
+            String json = response == null ? null : new String(response, StandardCharsets.UTF_8);
+            return withRequestId(json, requestId).getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] prefix = ("{\"_requestId\":" + gson.toJson(requestId) + (response.length > 2 ? "," : ""))
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] spliced = new byte[prefix.length + response.length - 1];
+        System.arraycopy(prefix, 0, spliced, 0, prefix.length);
+        System.arraycopy(response, 1, spliced, prefix.length, response.length - 1);
+        return spliced;
+    }
+
     private String withRequestId(String responseJson, String requestId) {
         if (requestId == null || requestId.isEmpty()) return responseJson;
         if (responseJson == null || responseJson.trim().isEmpty()) {
@@ -1132,9 +1245,14 @@ public class XiaomiWearableManager {
     }
 
     private void updateConnectedStatus(boolean connected) {
+        boolean reconnected;
         synchronized (this) {
+            reconnected = connected && !Boolean.TRUE.equals(connectedStatus);
             connectedStatus = connected;
         }
+        if (reconnected) {
+            HttpEngine.warmUp();
+        }
     }
 
     public synchronized String getCurrentNodeId() {
@@ -1254,25 +1372,57 @@ public class XiaomiWearableManager {
             uploadSessions.put(fileId, session);
 
             Logger.info("Upload start: " + name + " size=" + size + " chunks=" + totalChunks);
-            sendMessage(nodeId, gson.toJson(buildUploadStartPayload(requestId, fileId, name, size, mime, md5, totalChunks)));
-
-            int lastPercent = -1;
-            for (int index = 0; index < totalChunks; index++) {
-                int start = index * UPLOAD_CHUNK_SIZE;
-                int end = Math.min(start + UPLOAD_CHUNK_SIZE, data.length);
-                byte[] chunk = Arrays.copyOfRange(data, start, end);
-                String base64 = android.util.Base64.encodeToString(chunk, android.util.Base64.NO_WRAP);
-                sendMessage(nodeId, gson.toJson(buildUploadChunkPayload(requestId, fileId, index + 1, totalChunks, base64)));
-                int percent = (int) Math.round(((index + 1) * 100.0) / totalChunks);
-                if (percent != lastPercent && callback != null) {
-                    callback.onProgress(percent);
-                    lastPercent = percent;
+            sendBulkMessage(nodeId, gson.toJson(buildUploadStartPayload(requestId, fileId, name, size, mime, md5, totalChunks)));
+
+            int[] lastPercent = new int[]{-1};
+            ChunkTransfer transfer = new ChunkTransfer("upload " + fileId, totalChunks, chunkAckNodes.contains(nodeId),
+                    OutboundQueue.BULK_CAPACITY,
+                    new ChunkTransfer.Channel() {
+                        @Override
+                        public byte[] read(int index) {
+                            int start = (index - 1) * UPLOAD_CHUNK_SIZE;
+                            int end = Math.min(start + UPLOAD_CHUNK_SIZE, data.length);
+                            return Arrays.copyOfRange(data, start, end);
+                        }
+
+                        @Override
+                        public void send(int index, int total, byte[] chunk, Runnable onSent) {
+                            String base64 = android.util.Base64.encodeToString(chunk, android.util.Base64.NO_WRAP);
+                            sendBulkMessage(nodeId, gson.toJson(buildUploadChunkPayload(requestId, fileId, index, total, base64)), onSent);
+                        }
+
+                        @Override
+                        public boolean isAborted() {
+                            return uploadSessions.get(fileId) != session;
+                        }
+
+                        @Override
+                        public void onProgress(int ackedChunks, long ackedBytes) {
+                            int percent = (int) Math.round((ackedChunks * 100.0) / totalChunks);
+                            if (percent != lastPercent[0] && callback != null) {
+                                callback.onProgress(percent);
+                                lastPercent[0] = percent;
+                            }
+                        }
+                    });
+            session.transfer = transfer;
+            boolean delivered;
+            try {
+                delivered = transfer.run();
+            } catch (IOException e) {
+                delivered = false;
+            } finally {
+                session.transfer = null;
+            }
+            if (!delivered) {
+                if (uploadSessions.remove(fileId, session)) {
+                    notifyUploadFailure(callback, transfer.getFailure() == null ? "上传已中断" : "手表未确认分片");
                 }
-                SystemClock.sleep(8);
+                return;
             }
 
-            sendMessage(nodeId, gson.toJson(buildUploadFinishPayload(requestId, fileId, totalChunks, md5)));
-            Logger.info("Upload finish sent: " + fileId);
+            sendBulkMessage(nodeId, gson.toJson(buildUploadFinishPayload(requestId, fileId, totalChunks, md5)));
+            Logger.info("Upload finish sent: " + fileId + " queueDepth=" + outboundQueue.depth());
             scheduleUploadTimeout(fileId);
         });
     }
@@ -1324,7 +1474,10 @@ public class XiaomiWearableManager {
         if (ACTION_UPLOAD_ACK.equalsIgnoreCase(action)) {
             int index = getInt(json, "index", -1);
             int total = getInt(json, "total", -1);
-            Logger.info("Upload ack: fileId=" + fileId + " index=" + index + "/" + total);
+            Logger.debug("Upload ack: fileId=" + fileId + " index=" + index + "/" + total);
+            if (session != null) {
+                applyChunkAck(session.transfer, json);
+            }
             return;
         }
         if (ACTION_UPLOAD_RESULT.equalsIgnoreCase(action)) {
@@ -1346,6 +1499,38 @@ public class XiaomiWearableManager {
         }
     }
 
+    private void handleThemeChunkAck(JsonObject json) {
+        ThemeTransferSession session = activeThemeSession;
+        if (session == null || json == null) return;
+        String fileId = getString(json, "fileId");
+        if (fileId == null || !fileId.equals(session.transferFileId)) return;
+        applyChunkAck(session.transfer, json);
+    }
+
+    private void applyChunkAck(ChunkTransfer transfer, JsonObject json) {
+        if (transfer == null || json == null) return;
+        int upTo = getInt(json, "upTo", -1);
+        if (upTo > 0) {
+            transfer.onCumulativeAck(upTo);
+        }
+        int index = getInt(json, "index", -1);
+        if (index > 0) {
+            transfer.onAck(index);
+        }
+        if (json.has("missing") && json.get("missing").isJsonArray()) {
+            JsonArray missing = json.getAsJsonArray("missing");
+            int[] indices = new int[missing.size()];
+            for (int i = 0; i < indices.length; i++) {
+                try {
+                    indices[i] = missing.get(i).getAsInt();
+                } catch (Exception e) {
+                    indices[i] = -1;
+                }
+            }
+            transfer.onMissing(indices);
+        }
+    }
+
     private void handleThemeResponse(String action, JsonObject json, String requestId) {
         if (json == null) return;
         if (requestId == null || requestId.isEmpty()) {
@@ -1455,12 +1640,12 @@ public class XiaomiWearableManager {
                 if (actualOptions.openPage) {
                     String openId = buildThemeRequestId("theme_open");
                     registerThemeRequest(session, openId);
-                    sendMessage(nodeId, gson.toJson(buildThemeOpenPayload(openId, themeId)));
+                    sendBulkMessage(nodeId, gson.toJson(buildThemeOpenPayload(openId, themeId)));
                 }
 
                 String initId = buildThemeRequestId("theme_init");
                 registerThemeRequest(session, initId);
-                sendMessage(nodeId, gson.toJson(buildThemeInitPayload(initId, themeId, info.fileCount, info.totalChunks, info.totalBytes, actualOptions.clean)));
+                sendBulkMessage(nodeId, gson.toJson(buildThemeInitPayload(initId, themeId, info.fileCount, info.totalChunks, info.totalBytes, actualOptions.clean)));
                 ThemeResult initResult = awaitThemeResult(session, initId, THEME_TIMEOUT_MS);
                 if (initResult == null) {
                     notifyThemeFailure(session, "主题初始化超时");
@@ -1499,17 +1684,9 @@ public class XiaomiWearableManager {
                     String fileId = "f" + (filesSent + 1);
                     String startId = buildThemeRequestId("theme_file_start");
                     registerThemeRequest(session, startId);
-                    sendMessage(nodeId, gson.toJson(buildThemeFileStartPayload(startId, fileId, themeId, file.path, file.size, file.totalChunks)));
-                    ThemeResult startResult = awaitThemeResult(session, startId, THEME_TIMEOUT_MS);
-                    if (startResult == null) {
-                        notifyThemeFailure(session, "主题文件开始确认超时: " + file.path);
-                        break;
-                    }
-                    if (!startResult.ok) {
-                        String msg = startResult.message == null || startResult.message.trim().isEmpty()
-                                ? "主题文件开始失败: " + file.path
-                                : startResult.message.trim();
-                        notifyThemeFailure(session, msg);
+                    sendBulkMessage(nodeId, gson.toJson(buildThemeFileStartPayload(startId, fileId, themeId, file.path, file.size, file.totalChunks)));
+                    boolean pipelined = chunkAckNodes.contains(nodeId);
+                    if (!pipelined && !awaitThemeFileStart(session, startId, file)) {
                         break;
                     }
 
@@ -1527,9 +1704,12 @@ public class XiaomiWearableManager {
                     if (shouldAbortTheme(session)) {
                         break;
                     }
+                    if (pipelined && !awaitThemeFileStart(session, startId, file)) {
+                        break;
+                    }
                     String finishId = buildThemeRequestId("theme_file_finish");
                     registerThemeRequest(session, finishId);
-                    sendMessage(nodeId, gson.toJson(buildThemeFileFinishPayload(finishId, fileId, themeId, file.path)));
+                    sendBulkMessage(nodeId, gson.toJson(buildThemeFileFinishPayload(finishId, fileId, themeId, file.path)));
                     ThemeResult finishResult = awaitThemeResult(session, finishId, THEME_TIMEOUT_MS);
                     if (finishResult == null) {
                         notifyThemeFailure(session, "主题文件完成确认超时: " + file.path);
@@ -1565,7 +1745,7 @@ public class XiaomiWearableManager {
                     }
                     String finishId = buildThemeRequestId("theme_finish");
                     registerThemeRequest(session, finishId);
-                    sendMessage(nodeId, gson.toJson(buildThemeFinishPayload(finishId, themeId)));
+                    sendBulkMessage(nodeId, gson.toJson(buildThemeFinishPayload(finishId, themeId)));
                     finishResult = awaitThemeResult(session, finishId, THEME_TIMEOUT_MS);
                     if (finishResult != null) {
                         break;
@@ -1624,6 +1804,7 @@ public class XiaomiWearableManager {
             session.cancelSent = true;
             registerThemeRequest(session, cancelId);
         }
+        outboundQueue.dropBulk(nodeId);
         sendMessage(nodeId, gson.toJson(buildThemeCancelPayload(cancelId, clean)));
     }
 
@@ -1786,25 +1967,12 @@ public class XiaomiWearableManager {
             Logger.info("Theme file content ready: path=" + file.path + " bytes=" + data.length);
         }
         int total = Math.max(1, (int) ((data.length + (THEME_CHUNK_SIZE - 1)) / THEME_CHUNK_SIZE));
-        for (int index = 0; index < total; index++) {
-            if (shouldAbortTheme(session)) {
-                return sentBytes;
-            }
-            int start = index * THEME_CHUNK_SIZE;
-            int end = Math.min(start + THEME_CHUNK_SIZE, data.length);
-            byte[] chunk = Arrays.copyOfRange(data, start, end);
-            if ("theme.json".equalsIgnoreCase(file.path) && (index == 0 || index == total - 1)) {
-                Logger.info("Theme chunk sending: path=" + file.path + " index=" + (index + 1) + "/" + total + " bytes=" + chunk.length);
-            }
-            String base64 = android.util.Base64.encodeToString(chunk, android.util.Base64.NO_WRAP);
-            sendMessage(nodeId, gson.toJson(buildThemeFileChunkPayload(fileId, themeId, file.path, index + 1, total, base64)));
-            sentBytes += chunk.length;
-            if (useBytes) {
-                reportThemeProgress(session, filesSent, totalFiles, sentBytes, totalBytes, lastPercent);
-            }
-            SystemClock.sleep(4);
-        }
-        return sentBytes;
+        byte[] content = data;
+        return sendThemeChunks(nodeId, session, file, themeId, fileId, total, index -> {
+            int start = (index - 1) * THEME_CHUNK_SIZE;
+            int end = Math.min(start + THEME_CHUNK_SIZE, content.length);
+            return Arrays.copyOfRange(content, start, end);
+        }, sentBytes, useBytes, totalBytes, filesSent, totalFiles, lastPercent);
     }
 
     private long sendThemeChunksFromStream(String nodeId, ThemeTransferSession session, ThemeFile file, String themeId,
@@ -1815,34 +1983,15 @@ public class XiaomiWearableManager {
                 throw new ThemeTransferException("读取主题文件失败: " + file.path);
             }
             byte[] buffer = new byte[THEME_CHUNK_SIZE];
-            int read;
-            int index = 0;
-            int total = Math.max(1, file.totalChunks);
-            while ((read = input.read(buffer)) != -1) {
-                if (shouldAbortTheme(session)) {
-                    return sentBytes;
-                }
-                index++;
-                byte[] chunk = read == buffer.length ? buffer : Arrays.copyOf(buffer, read);
-                if ("theme.json".equalsIgnoreCase(file.path) && (index == 1 || index == total)) {
-                    Logger.info("Theme chunk sending: path=" + file.path + " index=" + index + "/" + total + " bytes=" + read);
-                }
-                String base64 = android.util.Base64.encodeToString(chunk, android.util.Base64.NO_WRAP);
-                sendMessage(nodeId, gson.toJson(buildThemeFileChunkPayload(fileId, themeId, file.path, index, total, base64)));
-                sentBytes += read;
-                if (useBytes) {
-                    reportThemeProgress(session, filesSent, totalFiles, sentBytes, totalBytes, lastPercent);
-                }
-                SystemClock.sleep(4);
-            }
-            if (index == 0) {
-                String base64 = android.util.Base64.encodeToString(new byte[0], android.util.Base64.NO_WRAP);
-                if ("theme.json".equalsIgnoreCase(file.path)) {
-                    Logger.info("Theme chunk sending: path=" + file.path + " index=1/1 bytes=0");
+            return sendThemeChunks(nodeId, session, file, themeId, fileId, Math.max(1, file.totalChunks), index -> {
+                int read = 0;
+                while (read < buffer.length) {
+                    int count = input.read(buffer, read, buffer.length - read);
+                    if (count == -1) break;
+                    read += count;
                 }
-                sendMessage(nodeId, gson.toJson(buildThemeFileChunkPayload(fileId, themeId, file.path, 1, 1, base64)));
-            }
-            return sentBytes;
+                return Arrays.copyOf(buffer, read);
+            }, sentBytes, useBytes, totalBytes, filesSent, totalFiles, lastPercent);
         } catch (ThemeTransferException e) {
             throw e;
         } catch (Exception e) {
@@ -1850,6 +1999,58 @@ public class XiaomiWearableManager {
         }
     }
 
+    private long sendThemeChunks(String nodeId, ThemeTransferSession session, ThemeFile file, String themeId,
+                                 String fileId, int total, ThemeChunkReader reader, long sentBytes, boolean useBytes,
+                                 long totalBytes, int filesSent, int totalFiles, int[] lastPercent) throws ThemeTransferException {
+        ChunkTransfer transfer = new ChunkTransfer("theme " + file.path, total, chunkAckNodes.contains(nodeId),
+                OutboundQueue.BULK_CAPACITY,
+                new ChunkTransfer.Channel() {
+                    @Override
+                    public byte[] read(int index) throws IOException {
+                        byte[] chunk = reader.read(index);
+                        if ("theme.json".equalsIgnoreCase(file.path) && (index == 1 || index == total)) {
+                            Logger.info("Theme chunk sending: path=" + file.path + " index=" + index + "/" + total + " bytes=" + chunk.length);
+                        }
+                        return chunk;
+                    }
+
+                    @Override
+                    public void send(int index, int total, byte[] chunk, Runnable onSent) {
+                        String base64 = android.util.Base64.encodeToString(chunk, android.util.Base64.NO_WRAP);
+                        sendBulkMessage(nodeId, gson.toJson(buildThemeFileChunkPayload(fileId, themeId, file.path, index, total, base64)), onSent);
+                    }
+
+                    @Override
+                    public boolean isAborted() {
+                        return shouldAbortTheme(session);
+                    }
+
+                    @Override
+                    public void onProgress(int ackedChunks, long ackedBytes) {
+                        if (useBytes) {
+                            reportThemeProgress(session, filesSent, totalFiles, sentBytes + ackedBytes, totalBytes, lastPercent);
+                        }
+                    }
+                });
+        session.transferFileId = fileId;
+        session.transfer = transfer;
+        try {
+            if (!transfer.run() && transfer.getFailure() != null) {
+                throw new ThemeTransferException("主题文件分片未确认: " + file.path);
+            }
+            return sentBytes + transfer.getAckedBytes();
+        } catch (IOException e) {
+            throw new ThemeTransferException("读取主题文件失败: " + file.path);
+        } finally {
+            session.transfer = null;
+            session.transferFileId = null;
+        }
+    }
+
+    private interface ThemeChunkReader {
+        byte[] read(int index) throws IOException;
+    }
+
     private boolean registerThemeSession(ThemeTransferSession session) {
         synchronized (themeLock) {
             if (activeThemeSession != null) {
@@ -1914,6 +2115,22 @@ public class XiaomiWearableManager {
         }
     }
 
+    private boolean awaitThemeFileStart(ThemeTransferSession session, String startId, ThemeFile file) {
+        ThemeResult startResult = awaitThemeResult(session, startId, THEME_TIMEOUT_MS);
+        if (startResult == null) {
+            notifyThemeFailure(session, "主题文件开始确认超时: " + file.path);
+            return false;
+        }
+        if (!startResult.ok) {
+            String msg = startResult.message == null || startResult.message.trim().isEmpty()
+                    ? "主题文件开始失败: " + file.path
+                    : startResult.message.trim();
+            notifyThemeFailure(session, msg);
+            return false;
+        }
+        return true;
+    }
+
     private boolean shouldAbortTheme(ThemeTransferSession session) {
         if (session == null) return true;
         return session.cancelled || session.failureMessage != null;
@@ -2159,6 +2376,8 @@ public class XiaomiWearableManager {
         volatile boolean cancelled = false;
         volatile boolean cancelSent = false;
         volatile String failureMessage;
+        volatile ChunkTransfer transfer;
+        volatile String transferFileId;
 
         ThemeTransferSession(String themeId, ThemeTransferCallback callback, int totalFiles, long totalBytes) {
             this.themeId = themeId;
@@ -2226,6 +2445,7 @@ public class XiaomiWearableManager {
         final String fileId;
         final UploadCallback callback;
         ScheduledFuture<?> timeoutFuture;
+        volatile ChunkTransfer transfer;
 
         UploadSession(String fileId, UploadCallback callback) {
             this.fileId = fileId;